@@ -0,0 +1,214 @@
+package banking;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Per-day and per-month rollups for an account, maintained as each transaction is recorded.
+// Daily rollups are only kept for a retention window behind the newest activity; monthly ones are kept for good.
+public class AccountAggregates {
+    public static final int DEFAULT_DAILY_RETENTION_DAYS = 92;
+
+    // Totals by transaction type plus the balance range seen within one day or month
+    public static class Rollup {
+        private final Map<String, Double> totals = new HashMap<>();
+        private int count;
+        private double openingBalance;
+        private double closingBalance;
+        private double minBalance;
+        private double maxBalance;
+
+        Rollup(double openingBalance) {
+            this.openingBalance = openingBalance;
+            this.closingBalance = openingBalance;
+            this.minBalance = openingBalance;
+            this.maxBalance = openingBalance;
+        }
+
+        void record(String type, double amount, double balanceAfter) {
+            totals.merge(type, amount, Double::sum);
+            count++;
+            closingBalance = balanceAfter;
+            minBalance = Math.min(minBalance, balanceAfter);
+            maxBalance = Math.max(maxBalance, balanceAfter);
+        }
+
+        public double getTotal(String type) {
+            return totals.getOrDefault(type, 0.0);
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public double getOpeningBalance() {
+            return openingBalance;
+        }
+
+        public double getClosingBalance() {
+            return closingBalance;
+        }
+
+        public double getMinBalance() {
+            return minBalance;
+        }
+
+        public double getMaxBalance() {
+            return maxBalance;
+        }
+    }
+
+    private final ZoneId zone;
+    private final TreeMap<LocalDate, Rollup> daily = new TreeMap<>();
+    private final TreeMap<YearMonth, Rollup> monthly = new TreeMap<>();
+    private int dailyRetentionDays;
+    private LocalDate evictedThrough; // Last day whose rollup was dropped, if any
+    private double evictedClosingBalance; // Its closing balance, carried forward into the window
+
+    public AccountAggregates() {
+        this(ZoneId.systemDefault(), DEFAULT_DAILY_RETENTION_DAYS);
+    }
+
+    public AccountAggregates(ZoneId zone) {
+        this(zone, DEFAULT_DAILY_RETENTION_DAYS);
+    }
+
+    public AccountAggregates(ZoneId zone, int dailyRetentionDays) {
+        if (dailyRetentionDays <= 0) {
+            throw new IllegalArgumentException("dailyRetentionDays must be positive");
+        }
+        this.zone = zone;
+        this.dailyRetentionDays = dailyRetentionDays;
+    }
+
+    public synchronized void setDailyRetentionDays(int dailyRetentionDays) {
+        if (dailyRetentionDays <= 0) {
+            throw new IllegalArgumentException("dailyRetentionDays must be positive");
+        }
+        this.dailyRetentionDays = dailyRetentionDays;
+        if (!daily.isEmpty()) {
+            evictBefore(daily.lastKey().minusDays(dailyRetentionDays - 1));
+        }
+    }
+
+    // Called for every recorded transaction with the account balance after it was applied
+    synchronized void record(Transaction transaction, double balanceAfter) {
+        LocalDate day = transaction.getDate().toInstant().atZone(zone).toLocalDate();
+        double balanceBefore = balanceAfter - transaction.getAmount();
+
+        daily.computeIfAbsent(day, d -> new Rollup(balanceBefore))
+                .record(transaction.getType(), transaction.getAmount(), balanceAfter);
+        monthly.computeIfAbsent(YearMonth.from(day), m -> new Rollup(balanceBefore))
+                .record(transaction.getType(), transaction.getAmount(), balanceAfter);
+
+        LocalDate oldestKept = daily.lastKey().minusDays(dailyRetentionDays - 1);
+        if (daily.firstKey().isBefore(oldestKept)) {
+            evictBefore(oldestKept);
+        }
+    }
+
+    // Drop daily rollups older than the window; their activity stays in the monthly rollups
+    private void evictBefore(LocalDate oldestKept) {
+        Map<LocalDate, Rollup> expired = daily.headMap(oldestKept, false);
+        if (expired.isEmpty()) {
+            return;
+        }
+        Map.Entry<LocalDate, Rollup> last = daily.lowerEntry(oldestKept);
+        if (evictedThrough == null || last.getKey().isAfter(evictedThrough)) {
+            evictedThrough = last.getKey();
+            evictedClosingBalance = last.getValue().getClosingBalance();
+        }
+        expired.clear();
+    }
+
+    // First day daily figures are exact for, or null if no daily rollup has been dropped yet
+    public synchronized LocalDate getDailyHorizon() {
+        return evictedThrough == null ? null : evictedThrough.plusDays(1);
+    }
+
+    // Rollup for a single day, or null if there was no activity that day or it is outside the retention window
+    public synchronized Rollup getDay(LocalDate day) {
+        return daily.get(day);
+    }
+
+    // Rollup for a single month, or null if there was no activity that month
+    public synchronized Rollup getMonth(YearMonth month) {
+        return monthly.get(month);
+    }
+
+    public synchronized double getDailyTotal(LocalDate day, String type) {
+        Rollup rollup = daily.get(day);
+        return rollup == null ? 0 : rollup.getTotal(type);
+    }
+
+    public synchronized double getMonthlyTotal(YearMonth month, String type) {
+        Rollup rollup = monthly.get(month);
+        return rollup == null ? 0 : rollup.getTotal(type);
+    }
+
+    // End-of-day balance, carried forward from the last day with activity.
+    // Days before the daily horizon are no longer known and are refused; so are range queries below
+    // starting before it, since they begin from the closing balance of the day before.
+    public synchronized double getClosingBalance(LocalDate day) {
+        if (evictedThrough != null && day.isBefore(evictedThrough)) {
+            throw new IllegalArgumentException("Daily balances before " + evictedThrough.plusDays(1)
+                    + " are outside the retention window; asked for " + day);
+        }
+        Map.Entry<LocalDate, Rollup> entry = daily.floorEntry(day);
+        if (entry != null) {
+            return entry.getValue().getClosingBalance();
+        }
+        return evictedThrough != null ? evictedClosingBalance : 0;
+    }
+
+    // Lowest end-of-day balance over [from, to], inclusive
+    public synchronized double getMinDailyBalance(LocalDate from, LocalDate to) {
+        double min = Double.MAX_VALUE;
+        double current = getClosingBalance(from.minusDays(1));
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            Rollup rollup = daily.get(day);
+            if (rollup != null) {
+                min = Math.min(min, rollup.getMinBalance());
+                current = rollup.getClosingBalance();
+            } else {
+                min = Math.min(min, current);
+            }
+        }
+        return min == Double.MAX_VALUE ? 0 : min;
+    }
+
+    // Highest balance seen over [from, to], inclusive
+    public synchronized double getMaxDailyBalance(LocalDate from, LocalDate to) {
+        double max = -Double.MAX_VALUE;
+        double current = getClosingBalance(from.minusDays(1));
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            Rollup rollup = daily.get(day);
+            if (rollup != null) {
+                max = Math.max(max, rollup.getMaxBalance());
+                current = rollup.getClosingBalance();
+            } else {
+                max = Math.max(max, current);
+            }
+        }
+        return max == -Double.MAX_VALUE ? 0 : max;
+    }
+
+    // Average of end-of-day balances over [from, to], inclusive
+    public synchronized double getAverageDailyBalance(LocalDate from, LocalDate to) {
+        double sum = 0;
+        int days = 0;
+        double current = getClosingBalance(from.minusDays(1));
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            Rollup rollup = daily.get(day);
+            if (rollup != null) {
+                current = rollup.getClosingBalance();
+            }
+            sum += current;
+            days++;
+        }
+        return days == 0 ? 0 : sum / days;
+    }
+}
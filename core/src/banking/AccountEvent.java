@@ -0,0 +1,91 @@
+package banking;
+
+import java.util.Locale;
+
+// A change to an account, as published to downstream consumers
+public class AccountEvent {
+
+    public enum Kind { ACCOUNT_CREATED, DEPOSIT, WITHDRAWAL, INTEREST_CREDIT, OTHER }
+
+    private final long sequence;
+    private final Kind kind;
+    private final String accountNumber;
+    private final String accountType;
+    private final String description;
+    private final double amount;
+    private final double balanceAfter;
+    private final long timestampMillis;
+
+    public AccountEvent(long sequence, Kind kind, String accountNumber, String accountType, String description,
+                        double amount, double balanceAfter, long timestampMillis) {
+        this.sequence = sequence;
+        this.kind = kind;
+        this.accountNumber = accountNumber;
+        this.accountType = accountType;
+        this.description = description;
+        this.amount = amount;
+        this.balanceAfter = balanceAfter;
+        this.timestampMillis = timestampMillis;
+    }
+
+    // The same event numbered for delivery
+    AccountEvent withSequence(long sequence) {
+        return new AccountEvent(sequence, kind, accountNumber, accountType, description, amount, balanceAfter,
+                timestampMillis);
+    }
+
+    // Classify a transaction by its type label
+    static Kind kindOf(String transactionType) {
+        if (transactionType.contains("Interest")) {
+            return Kind.INTEREST_CREDIT;
+        } else if (transactionType.contains("Deposit")) {
+            return Kind.DEPOSIT;
+        } else if (transactionType.contains("Withdrawal")) {
+            return Kind.WITHDRAWAL;
+        }
+        return Kind.OTHER;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public String getAccountType() {
+        return accountType;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public double getBalanceAfter() {
+        return balanceAfter;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    // One comma-separated line, as written by the file sink
+    public String toLine() {
+        return String.format(Locale.ROOT, "%d,%s,%s,%s,%s,%.2f,%.2f,%d", sequence, kind, accountNumber,
+                accountType, description, amount, balanceAfter, timestampMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + kind + " " + accountNumber + ": " + amount + " (balance " + balanceAfter + ")";
+    }
+}
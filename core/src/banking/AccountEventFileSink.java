@@ -0,0 +1,89 @@
+package banking;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+
+// Appends account events to a local file, one line each, pulling them in batches
+public class AccountEventFileSink implements Flow.Subscriber<AccountEvent> {
+    private final BufferedWriter writer;
+    private final int batchSize;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private Flow.Subscription subscription;
+    private int outstanding;
+    private volatile Throwable failure;
+
+    public AccountEventFileSink(Path file, int batchSize) throws IOException {
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        outstanding = batchSize;
+        subscription.request(batchSize);
+    }
+
+    @Override
+    public void onNext(AccountEvent event) {
+        try {
+            writer.write(event.toLine());
+            writer.newLine();
+        } catch (IOException e) {
+            subscription.cancel();
+            onError(e);
+            return;
+        }
+
+        // Ask for the next batch once this one is done, flushing what we have
+        if (--outstanding == 0) {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                subscription.cancel();
+                onError(e);
+                return;
+            }
+            outstanding = batchSize;
+            subscription.request(batchSize);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        failure = throwable;
+        closeWriter();
+    }
+
+    @Override
+    public void onComplete() {
+        closeWriter();
+    }
+
+    // Wait until the publisher completes and everything is on disk
+    public void awaitCompletion() throws InterruptedException, IOException {
+        done.await();
+        if (failure != null) {
+            throw new IOException("Event sink failed", failure);
+        }
+    }
+
+    private void closeWriter() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        } finally {
+            done.countDown();
+        }
+    }
+}
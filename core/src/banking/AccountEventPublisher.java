@@ -0,0 +1,131 @@
+package banking;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Change-data-capture outbox. Account operations drop events into a bounded outbox without ever
+// blocking or sharing a lock; a single dispatcher thread numbers them and hands them to every
+// subscriber without waiting. Events are dropped and counted when the outbox is full, or for one
+// subscriber when that subscriber's buffer is full. Sequence numbers are assigned in delivery order
+// and events lost in the outbox use up numbers too, so every subscriber sees strictly increasing
+// numbers and a missing one always means a loss, never a reordering.
+public class AccountEventPublisher implements AccountListener, AutoCloseable {
+    private final BlockingQueue<AccountEvent> outbox;
+    private final ExecutorService delivery;
+    private final SubmissionPublisher<AccountEvent> publisher;
+    private final Thread dispatcher;
+    private final AtomicLong unnumberedDrops = new AtomicLong(); // Outbox losses not yet given a number
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder droppedForSubscribers = new LongAdder();
+    private volatile long sequence; // Last number handed out; written by the dispatcher only
+    private volatile boolean closed;
+
+    // Numbers start from the wall clock in microseconds, so a later run continues above an earlier one
+    // unless that one averaged more than an event per microsecond. Use the other constructor with a
+    // persisted getLastSequence() where that is not enough.
+    public AccountEventPublisher(int outboxCapacity, int subscriberBuffer) {
+        this(outboxCapacity, subscriberBuffer, TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+    }
+
+    // outboxCapacity bounds the hot path's buffer; subscriberBuffer bounds how far each subscriber may lag.
+    // The first event is numbered lastSequence + 1.
+    public AccountEventPublisher(int outboxCapacity, int subscriberBuffer, long lastSequence) {
+        this.outbox = new ArrayBlockingQueue<>(outboxCapacity);
+        this.sequence = lastSequence;
+        // Subscribers get their own threads, so one that blocks cannot hold up delivery to the others
+        this.delivery = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "account-event-delivery");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.publisher = new SubmissionPublisher<>(delivery, subscriberBuffer);
+        this.dispatcher = new Thread(this::dispatch, "account-event-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    public void subscribe(Flow.Subscriber<? super AccountEvent> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    // Only accounts opened while attached; loading or attaching to existing accounts emits nothing
+    @Override
+    public void accountCreated(BankAccount account) {
+        publish(AccountEvent.Kind.ACCOUNT_CREATED, account, "Account Created", account.checkBalance());
+    }
+
+    @Override
+    public void transactionRecorded(BankAccount account, Transaction transaction) {
+        publish(AccountEvent.kindOf(transaction.getType()), account, transaction.getType(), transaction.getAmount());
+    }
+
+    // Events lost for every subscriber because the outbox was full
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    // Deliveries skipped because a subscriber's own buffer was full, summed over subscribers
+    public long getSubscriberDroppedCount() {
+        return droppedForSubscribers.sum();
+    }
+
+    // Last sequence number used, including numbers given to lost events; persist it to continue numbering
+    // in a later run. Final once the publisher is closed.
+    public long getLastSequence() {
+        return sequence;
+    }
+
+    private void publish(AccountEvent.Kind kind, BankAccount account, String description, double amount) {
+        if (closed) {
+            return;
+        }
+        AccountEvent event = new AccountEvent(0, kind, account.getAccountNumber(), account.getAccountType(),
+                description, amount, account.checkBalance(), account.clock.millis());
+        if (!outbox.offer(event)) {
+            dropped.increment();
+            unnumberedDrops.incrementAndGet();
+        }
+    }
+
+    // Never waits on a subscriber: one that falls behind misses events, the others are unaffected.
+    // Outbox losses are numbered just before the next delivered event, leaving the gap there.
+    private void dispatch() {
+        try {
+            while (!closed || !outbox.isEmpty()) {
+                AccountEvent pending = outbox.poll(100, TimeUnit.MILLISECONDS);
+                if (pending != null) {
+                    long number = sequence + unnumberedDrops.getAndSet(0) + 1;
+                    sequence = number;
+                    publisher.offer(pending.withSequence(number), (subscriber, missed) -> {
+                        droppedForSubscribers.increment();
+                        return false;
+                    });
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sequence += unnumberedDrops.getAndSet(0);
+            publisher.close();
+            delivery.shutdown(); // Lets subscribers finish what is already buffered for them
+        }
+    }
+
+    // Stop accepting events, deliver what is already in the outbox, then complete subscribers
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            dispatcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package banking;
+
+// Notified of account changes; attach to an account directly or to an AccountRegistry
+public interface AccountListener {
+
+    // Called when an account joins a registry this listener is attached to, or when the listener is
+    // attached to a registry the account is already in
+    default void accountRegistered(BankAccount account) {
+    }
+
+    // Called after accountRegistered when the account was newly opened rather than loaded
+    default void accountCreated(BankAccount account) {
+    }
+
+    // Called after every change to an account's balance
+    default void balanceChanged(BankAccount account, double oldBalance) {
+    }
+
+    // Called after a transaction is added to an account's history
+    default void transactionRecorded(BankAccount account, Transaction transaction) {
+    }
+}
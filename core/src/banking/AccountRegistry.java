@@ -0,0 +1,78 @@
+package banking;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// All accounts by number, plus a secondary index by account class for type-specific scans
+public class AccountRegistry {
+    private final ConcurrentMap<String, BankAccount> accounts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, Set<BankAccount>> byType = new ConcurrentHashMap<>();
+    private final List<AccountListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Add a newly opened account; returns false if an account with the same number already exists.
+    // Registering and attaching a listener share one lock, so a listener is attached to every account exactly once.
+    public boolean register(BankAccount account) {
+        return register(account, true);
+    }
+
+    // Add an account that already existed, e.g. one loaded from storage; listeners are not told it was created
+    public boolean registerExisting(BankAccount account) {
+        return register(account, false);
+    }
+
+    private synchronized boolean register(BankAccount account, boolean created) {
+        if (accounts.putIfAbsent(account.getAccountNumber(), account) != null) {
+            return false;
+        }
+        byType.computeIfAbsent(account.getClass(), type -> ConcurrentHashMap.newKeySet()).add(account);
+        for (AccountListener listener : listeners) {
+            account.addListener(listener);
+            listener.accountRegistered(account);
+            if (created) {
+                listener.accountCreated(account);
+            }
+        }
+        return true;
+    }
+
+    // Attach a listener to every account, including those registered before it
+    public synchronized void addListener(AccountListener listener) {
+        listeners.add(listener);
+        for (BankAccount account : accounts.values()) {
+            account.addListener(listener);
+            listener.accountRegistered(account);
+        }
+    }
+
+    public BankAccount get(String accountNumber) {
+        return accounts.get(accountNumber);
+    }
+
+    public boolean contains(String accountNumber) {
+        return accounts.containsKey(accountNumber);
+    }
+
+    public Collection<BankAccount> all() {
+        return Collections.unmodifiableCollection(accounts.values());
+    }
+
+    // Accounts of exactly the given class, without scanning the others
+    @SuppressWarnings("unchecked")
+    public <T extends BankAccount> Collection<T> ofType(Class<T> type) {
+        Set<BankAccount> index = byType.get(type);
+        return index == null ? Collections.emptySet() : (Collection<T>) Collections.unmodifiableCollection(index);
+    }
+
+    public int size() {
+        return accounts.size();
+    }
+
+    public boolean isEmpty() {
+        return accounts.isEmpty();
+    }
+}
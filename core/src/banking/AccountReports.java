@@ -0,0 +1,62 @@
+package banking;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+// Aggregate and filter queries across all accounts, run as parallel scans over the type indexes
+public class AccountReports {
+    private static final Map<Class<? extends BankAccount>, String> ACCOUNT_TYPES = new LinkedHashMap<>();
+
+    static {
+        ACCOUNT_TYPES.put(SavingsAccount.class, "Savings Account");
+        ACCOUNT_TYPES.put(CurrentAccount.class, "Current Account");
+        ACCOUNT_TYPES.put(FixedDepositAccount.class, "Fixed Deposit Account");
+    }
+
+    private final AccountRegistry registry;
+
+    public AccountReports(AccountRegistry registry) {
+        this.registry = registry;
+    }
+
+    // Total balance held in each account type, keyed by the type's display name
+    public Map<String, Double> totalBalanceByType() {
+        Map<String, Double> totals = new LinkedHashMap<>();
+        for (Map.Entry<Class<? extends BankAccount>, String> type : ACCOUNT_TYPES.entrySet()) {
+            totals.put(type.getValue(), sum(type.getKey(), BankAccount::checkBalance));
+        }
+        return totals;
+    }
+
+    public List<CurrentAccount> overdrawnCurrentAccounts() {
+        return filter(CurrentAccount.class, account -> account.checkBalance() < 0);
+    }
+
+    // Fixed deposits maturing within [from, to)
+    public List<FixedDepositAccount> maturingBetween(Date from, Date to) {
+        return filter(FixedDepositAccount.class, account ->
+                !account.getMaturityDate().before(from) && account.getMaturityDate().before(to));
+    }
+
+    public <T extends BankAccount> double sum(Class<T> type, ToDoubleFunction<? super T> value) {
+        return registry.ofType(type).parallelStream().mapToDouble(value).sum();
+    }
+
+    public <T extends BankAccount> long count(Class<T> type, Predicate<? super T> condition) {
+        return registry.ofType(type).parallelStream().filter(condition).count();
+    }
+
+    public <T extends BankAccount> List<T> filter(Class<T> type, Predicate<? super T> condition) {
+        return registry.ofType(type).parallelStream().filter(condition).collect(Collectors.toList());
+    }
+
+    // Queries that span every account type
+    public List<BankAccount> filterAll(Predicate<? super BankAccount> condition) {
+        return registry.all().parallelStream().filter(condition).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,31 @@
+package banking;
+
+// Balance of an account together with the version it was read at
+public class AccountSnapshot {
+    private final String accountNumber;
+    private final double balance;
+    private final long version;
+
+    public AccountSnapshot(String accountNumber, double balance, long version) {
+        this.accountNumber = accountNumber;
+        this.balance = balance;
+        this.version = version;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public double getBalance() {
+        return balance;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return accountNumber + " - Balance: $" + balance + " (version " + version + ")";
+    }
+}
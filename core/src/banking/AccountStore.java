@@ -0,0 +1,308 @@
+package banking;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+// Persists accounts to a directory: a rewritable snapshot (accounts.csv) and an append-only log of
+// every transaction (history.log) that tracked accounts write to as they go.
+//
+// The snapshot is the commit point. It records how much of history.log it covers, together with
+// each account's state and the request ids applied so far, and is replaced in one atomic rename.
+// History past that length belongs to a run that never committed, and is cut off when the store is
+// next opened, so a crashed run leaves no trace and can simply be retried.
+public class AccountStore implements AccountListener, AutoCloseable {
+    public static final String ACCOUNTS_FILE = "accounts.csv";
+    public static final String HISTORY_FILE = "history.log";
+
+    private static final String HISTORY_MARKER = "#history";
+    private static final String REQUEST_RECORD = "request";
+
+    private final Path directory;
+    private final Clock clock;
+    private final FileChannel historyChannel;
+    private final BufferedWriter history;
+    private final long discardedHistoryBytes;
+    private IOException writeFailure; // First failed history append; guarded by history
+
+    public AccountStore(Path directory) throws IOException {
+        this(directory, Clock.systemDefaultZone());
+    }
+
+    // Loaded and newly funded accounts run on the given clock
+    public AccountStore(Path directory, Clock clock) throws IOException {
+        this.directory = directory;
+        this.clock = clock;
+        Files.createDirectories(directory);
+
+        this.historyChannel = FileChannel.open(directory.resolve(HISTORY_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long committed = committedHistoryLength(directory);
+            long size = historyChannel.size();
+            if (committed < 0) {
+                committed = size; // Nothing to go by, keep everything
+            } else if (size < committed) {
+                throw new IOException(HISTORY_FILE + " is " + size + " bytes but the snapshot covers "
+                        + committed + "; it was truncated or replaced");
+            }
+            this.discardedHistoryBytes = size - committed;
+            historyChannel.truncate(committed);
+            historyChannel.position(committed);
+        } catch (IOException e) {
+            historyChannel.close();
+            throw e;
+        }
+        this.history = new BufferedWriter(Channels.newWriter(historyChannel, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    // Bytes of uncommitted history from an interrupted run that were cut off on opening
+    public long getDiscardedHistoryBytes() {
+        return discardedHistoryBytes;
+    }
+
+    // Rebuild every account from the snapshot into the registry and start tracking them. History is not
+    // read back; it stays in history.log. Remembered request ids go into the cache, if one is given.
+    public void load(AccountRegistry registry, IdempotencyCache requests) throws IOException {
+        Path accountsFile = directory.resolve(ACCOUNTS_FILE);
+        if (!Files.exists(accountsFile)) {
+            return;
+        }
+
+        List<BankAccount> loaded = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(accountsFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (line.startsWith(REQUEST_RECORD + ",")) {
+                    if (requests != null) {
+                        restoreRequest(line, requests);
+                    }
+                    continue;
+                }
+                BankAccount account = parseAccount(line, clock);
+                registry.registerExisting(account);
+                loaded.add(account);
+            }
+        }
+
+        for (BankAccount account : loaded) {
+            account.addListener(this);
+        }
+    }
+
+    // Start persisting a newly created account, including anything it recorded before now
+    public void track(BankAccount account) {
+        List<Transaction> existing = account.getLastNTransactions(Integer.MAX_VALUE);
+        Collections.reverse(existing);
+        for (Transaction transaction : existing) {
+            transactionRecorded(account, transaction);
+        }
+        account.addListener(this);
+    }
+
+    // Runs after the balance has changed, so a failed append is not thrown back at the operation;
+    // it is remembered and fails the next save, leaving the run uncommitted
+    @Override
+    public void transactionRecorded(BankAccount account, Transaction transaction) {
+        String line = account.getAccountNumber() + "," + transaction.getDate().getTime() + ","
+                + transaction.getType() + "," + Double.toString(transaction.getAmount());
+        synchronized (history) {
+            if (writeFailure != null) {
+                return;
+            }
+            try {
+                history.write(line);
+                history.newLine();
+            } catch (IOException e) {
+                writeFailure = e;
+            }
+        }
+    }
+
+    // Commit: force the history to disk, then atomically replace the snapshot with one that covers it.
+    // Call once no more operations are running.
+    public void save(AccountRegistry registry, IdempotencyCache requests) throws IOException {
+        long committed;
+        synchronized (history) {
+            if (writeFailure != null) {
+                throw new IOException("Failed to append to " + HISTORY_FILE + "; nothing was committed", writeFailure);
+            }
+            history.flush();
+            historyChannel.force(false);
+            committed = historyChannel.size();
+        }
+
+        Path temp = directory.resolve(ACCOUNTS_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             BufferedWriter writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), 1 << 16)) {
+            writer.write(HISTORY_MARKER + "," + committed);
+            writer.newLine();
+            for (BankAccount account : registry.all()) {
+                writer.write(formatAccount(account));
+                writer.newLine();
+            }
+            if (requests != null) {
+                writeRequests(writer, requests);
+            }
+            writer.flush();
+            channel.force(false);
+        }
+        Files.move(temp, directory.resolve(ACCOUNTS_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (history) {
+            history.close();
+        }
+    }
+
+    // Length of history.log covered by the snapshot in the directory: 0 with no snapshot,
+    // -1 for a snapshot written before the length was recorded
+    static long committedHistoryLength(Path directory) throws IOException {
+        Path accountsFile = directory.resolve(ACCOUNTS_FILE);
+        if (!Files.exists(accountsFile)) {
+            return 0;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(accountsFile, StandardCharsets.UTF_8)) {
+            String first = reader.readLine();
+            if (first == null || !first.startsWith(HISTORY_MARKER + ",")) {
+                return -1;
+            }
+            return Long.parseLong(first.substring(HISTORY_MARKER.length() + 1).trim());
+        }
+    }
+
+    // Whether a snapshot line describes an account rather than a marker or a remembered request
+    static boolean isAccountRecord(String line) {
+        return !line.isEmpty() && !line.startsWith("#") && !line.startsWith(REQUEST_RECORD + ",");
+    }
+
+    // request,createdMillis,result,digest,key with the key last since request ids may contain commas
+    private void writeRequests(BufferedWriter writer, IdempotencyCache requests) throws IOException {
+        try {
+            requests.forEachResult(clock.millis(), (key, digest, createdMillis, result) -> {
+                if (!(result instanceof Boolean) && !(result instanceof Double)) {
+                    return; // Only the results produced by account operations are persisted
+                }
+                try {
+                    writer.write(REQUEST_RECORD + "," + createdMillis + "," + result + ","
+                            + (digest == null ? "" : digest) + "," + key);
+                    writer.newLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Records without a digest (empty, or four fields from before digests were kept) match any replay
+    private static void restoreRequest(String line, IdempotencyCache requests) {
+        String[] fields = line.split(",", 5);
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Malformed request record: " + line);
+        }
+        Object result = fields[2].equals("true") || fields[2].equals("false")
+                ? (Object) Boolean.valueOf(fields[2]) : (Object) Double.valueOf(fields[2]);
+        String digest = fields.length == 5 && !fields[3].isEmpty() ? fields[3] : null;
+        String key = fields.length == 5 ? fields[4] : fields[3];
+        requests.restore(key, digest, Long.parseLong(fields[1]), result);
+    }
+
+    // kind,number,balance,version,parameter where the parameter depends on the account type. Savings
+    // accounts add their open accrual period: posted time, last change time, balance-days and interest.
+    static String formatAccount(BankAccount account) {
+        synchronized (account) {
+            AccountSnapshot snapshot = account.snapshot();
+            String kind;
+            String parameter;
+            if (account instanceof SavingsAccount) {
+                InterestAccrual accrual = ((SavingsAccount) account).getAccrual();
+                kind = "savings";
+                parameter = String.join(",", Double.toString(((SavingsAccount) account).getMinimumBalance()),
+                        Long.toString(accrual.getPostedMillis()), Long.toString(accrual.getLastChangeMillis()),
+                        Double.toString(accrual.getBalanceDaysSincePosted()),
+                        Double.toString(accrual.getInterestSincePosted()));
+            } else if (account instanceof CurrentAccount) {
+                kind = "current";
+                parameter = Double.toString(((CurrentAccount) account).getOverdraftLimit());
+            } else if (account instanceof FixedDepositAccount) {
+                kind = "fd";
+                parameter = Long.toString(((FixedDepositAccount) account).getMaturityDate().getTime());
+            } else {
+                throw new IllegalArgumentException("Unknown account type " + account.getClass().getName());
+            }
+            return String.join(",", kind, snapshot.getAccountNumber(), Double.toString(snapshot.getBalance()),
+                    Long.toString(snapshot.getVersion()), parameter);
+        }
+    }
+
+    static BankAccount parseAccount(String line, Clock clock) {
+        String[] fields = line.split(",", -1);
+        String kind = fields[0].toLowerCase(Locale.ROOT);
+        boolean withAccrual = kind.equals("savings") && fields.length == 9;
+        if (fields.length != 5 && !withAccrual) {
+            throw new IllegalArgumentException("Malformed account record: " + line);
+        }
+
+        BankAccount account;
+        switch (kind) {
+            case "savings":
+                account = new SavingsAccount(fields[1], 0, Double.parseDouble(fields[4]));
+                break;
+            case "current":
+                account = new CurrentAccount(fields[1], 0, Double.parseDouble(fields[4]));
+                break;
+            case "fd":
+                account = new FixedDepositAccount(fields[1], 0, new Date(Long.parseLong(fields[4])));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown account type: " + fields[0]);
+        }
+        account.setClock(clock);
+        account.restoreState(Double.parseDouble(fields[2]), Long.parseLong(fields[3]));
+        if (withAccrual) {
+            // Older snapshots have no accrual period; those start a fresh one on loading
+            ((SavingsAccount) account).getAccrual().restore(Long.parseLong(fields[5]), Long.parseLong(fields[6]),
+                    Double.parseDouble(fields[7]), Double.parseDouble(fields[8]));
+        }
+        return account;
+    }
+
+    // accountNumber,timestampMillis,type,amount
+    static Transaction parseTransaction(String[] fields) {
+        if (fields.length != 4) {
+            throw new IllegalArgumentException("Malformed history record: " + String.join(",", fields));
+        }
+        return new Transaction(fields[2], Double.parseDouble(fields[3]), new Date(Long.parseLong(fields[1])));
+    }
+}
@@ -0,0 +1,360 @@
+package banking;
+
+import java.time.Clock;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedList;
+
+// Abstract class for bank accounts
+public abstract class BankAccount implements BankOperations {
+    protected String accountNumber;
+    protected double balance;
+    protected long version; // Bumped on every balance change, for optimistic concurrency
+    protected TransactionNode head; // Head of transaction linked list
+    protected int hotCount; // Number of transactions in the linked list
+    protected TransactionArchive archive; // Older history spilled out of the linked list, if configured
+    protected int spillDeferred; // Extra entries to hold before retrying a spill that failed
+    protected RuntimeException archiveFailure; // Why the last spill failed, until one succeeds
+    protected final AccountAggregates aggregates = new AccountAggregates(); // Daily/monthly rollups
+    protected Clock clock = Clock.systemDefaultZone(); // Time source for transactions and accrual
+    protected RiskRuleEngine ruleEngine; // Optional checks run before every withdrawal
+    protected String lastRejection; // Why the last withdrawal was refused by the rule engine, if it was
+    protected IdempotencyCache idempotencyCache; // Remembers results of keyed requests so replays are not reapplied
+    private final List<AccountListener> listeners = new CopyOnWriteArrayList<>();
+
+    private static final OptimisticMetrics optimisticMetrics = new OptimisticMetrics();
+
+    public BankAccount(String accountNumber, double initialBalance) {
+        this.accountNumber = accountNumber;
+        this.balance = initialBalance;
+        this.head = null;
+
+        if (initialBalance > 0) {
+            addTransaction("Initial Deposit", initialBalance);
+        }
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    @Override
+    public double checkBalance() {
+        return balance;
+    }
+
+    // What could be withdrawn before hitting a hard limit; overridden where an overdraft adds headroom
+    public double getAvailableFunds() {
+        return balance;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    // Balance and version read together, for clients doing optimistic updates
+    public synchronized AccountSnapshot snapshot() {
+        return new AccountSnapshot(accountNumber, balance, version);
+    }
+
+    // Returns whether the deposit was applied
+    @Override
+    public synchronized boolean deposit(double amount) {
+        if (amount > 0) {
+            adjustBalance(amount);
+            return true;
+        }
+        return false;
+    }
+
+    // All balance changes go through here so subclasses can react to them
+    protected synchronized void adjustBalance(double delta) {
+        double oldBalance = balance;
+        balance += delta;
+        version++;
+        balanceChanged(oldBalance);
+        for (AccountListener listener : listeners) {
+            listener.balanceChanged(this, oldBalance);
+        }
+    }
+
+    // Hook called after every balance change
+    protected void balanceChanged(double oldBalance) {
+    }
+
+    // Run the risk rules first, then the account type's own withdrawal checks
+    @Override
+    public synchronized boolean withdraw(double amount) {
+        lastRejection = null;
+        long now = clock.millis();
+
+        if (ruleEngine != null) {
+            String violation = ruleEngine.check(this, amount, now);
+            if (violation != null) {
+                lastRejection = violation;
+                return false;
+            }
+        }
+
+        boolean success = applyWithdrawal(amount);
+        if (success && ruleEngine != null) {
+            ruleEngine.record(this, amount, now);
+        }
+        return success;
+    }
+
+    // Abstract method that will be implemented differently by each account type
+    protected abstract boolean applyWithdrawal(double amount);
+
+    // Deposit and record it as one step under the account lock;
+    // a replayed request id returns the original result without depositing again
+    public boolean deposit(String requestId, double amount) {
+        return idempotent(requestId, "deposit:" + amount, () -> {
+            synchronized (this) {
+                if (!deposit(amount)) {
+                    return false;
+                }
+                addTransaction("Deposit", amount);
+                return true;
+            }
+        });
+    }
+
+    // Withdraw and record it as one step under the account lock;
+    // a replayed request id returns the original result without withdrawing again
+    public boolean withdraw(String requestId, double amount) {
+        return idempotent(requestId, "withdraw:" + amount, () -> {
+            synchronized (this) {
+                if (!withdraw(amount)) {
+                    return false;
+                }
+                addTransaction("Withdrawal", -amount);
+                return true;
+            }
+        });
+    }
+
+    // Deposit and record it only if nobody has changed the account since the client read expectedVersion
+    public synchronized OptimisticMetrics.Outcome depositIfVersion(long expectedVersion, double amount) {
+        if (version != expectedVersion) {
+            return optimisticMetrics.record(OptimisticMetrics.Outcome.VERSION_CONFLICT);
+        }
+        if (!deposit(amount)) {
+            return optimisticMetrics.record(OptimisticMetrics.Outcome.REJECTED);
+        }
+        addTransaction("Deposit", amount);
+        return optimisticMetrics.record(OptimisticMetrics.Outcome.APPLIED);
+    }
+
+    // Withdraw and record it only if nobody has changed the account since the client read expectedVersion
+    public synchronized OptimisticMetrics.Outcome withdrawIfVersion(long expectedVersion, double amount) {
+        if (version != expectedVersion) {
+            return optimisticMetrics.record(OptimisticMetrics.Outcome.VERSION_CONFLICT);
+        }
+        if (!withdraw(amount)) {
+            return optimisticMetrics.record(OptimisticMetrics.Outcome.REJECTED);
+        }
+        addTransaction("Withdrawal", -amount);
+        return optimisticMetrics.record(OptimisticMetrics.Outcome.APPLIED);
+    }
+
+    // Attempt, conflict and rejection counts for conditional updates across all accounts
+    public static OptimisticMetrics getOptimisticMetrics() {
+        return optimisticMetrics;
+    }
+
+    // Run a mutating operation at most once per request id when a cache is attached;
+    // digest names the operation and its arguments so a reused id with different ones is refused
+    protected <T> T idempotent(String requestId, String digest, Supplier<T> operation) {
+        if (idempotencyCache == null || requestId == null) {
+            return operation.get();
+        }
+        return idempotencyCache.execute(accountNumber + "/" + requestId, digest, clock.millis(), operation);
+    }
+
+    // Whether a keyed request would be answered from the cache rather than applied
+    public boolean isReplay(String requestId) {
+        return idempotencyCache != null && requestId != null
+                && idempotencyCache.contains(accountNumber + "/" + requestId, clock.millis());
+    }
+
+    // Add transaction to linked list (at the beginning - most recent first)
+    public synchronized void addTransaction(String type, double amount) {
+        Transaction transaction = new Transaction(type, amount, new Date(clock.millis())); // add current date
+        push(transaction);
+
+        aggregates.record(transaction, balance);
+        for (AccountListener listener : listeners) {
+            listener.transactionRecorded(this, transaction);
+        }
+    }
+
+    // Fund an account opened with a zero balance, dating the Initial Deposit by the account's own clock
+    synchronized void fund(double initialBalance) {
+        if (initialBalance > 0) {
+            adjustBalance(initialBalance);
+            addTransaction("Initial Deposit", initialBalance);
+        }
+    }
+
+    // Put persisted state back without recording a transaction or notifying listeners
+    synchronized void restoreState(double balance, long version) {
+        double oldBalance = this.balance;
+        this.balance = balance;
+        this.version = version;
+        balanceChanged(oldBalance);
+    }
+
+    private void push(Transaction transaction) {
+        TransactionNode newNode = new TransactionNode(transaction);
+
+        if (head == null) {
+            head = newNode;
+        } else {
+            newNode.next = head;
+            head = newNode;
+        }
+        hotCount++;
+
+        if (archive != null && hotCount >= archive.getHotLimit() + archive.getSegmentSize() + spillDeferred) {
+            spillToArchive();
+        }
+    }
+
+    // Archive everything past the hot limit as one segment, and only then cut it off the linked list.
+    // If the segment cannot be written the entries stay in memory and the spill is retried a segment
+    // later, so recording a transaction never fails after the balance has already changed.
+    private void spillToArchive() {
+        int keep = archive.getHotLimit();
+        TransactionNode last = null;
+        TransactionNode cut = head;
+        for (int i = 0; i < keep; i++) {
+            last = cut;
+            cut = cut.next;
+        }
+
+        List<Transaction> spilled = new ArrayList<>(hotCount - keep);
+        for (TransactionNode node = cut; node != null; node = node.next) {
+            spilled.add(node.transaction);
+        }
+        Collections.reverse(spilled);
+        try {
+            archive.append(spilled);
+        } catch (RuntimeException e) {
+            archiveFailure = e;
+            spillDeferred = hotCount - keep;
+            return;
+        }
+
+        if (last == null) {
+            head = null;
+        } else {
+            last.next = null;
+        }
+        hotCount = keep;
+        spillDeferred = 0;
+        archiveFailure = null;
+    }
+
+    // Get last N transactions using the linked list
+    public List<Transaction> getLastNTransactions(int n) {
+        List<Transaction> transactions = new ArrayList<>();
+        TransactionNode current = head;
+        int count = 0;
+
+        while (current != null && count < n) {
+            transactions.add(current.transaction);
+            current = current.next;
+            count++;
+        }
+
+        if (count < n && archive != null) {
+            archive.collectNewest(n - count, transactions);
+        }
+
+        return transactions;
+    }
+
+    // Get transactions dated within [from, to), oldest first
+    public List<Transaction> getTransactionsBetween(Date from, Date to) {
+        List<Transaction> transactions = new ArrayList<>();
+        TransactionNode current = head;
+
+        // The list is most recent first, so stop once we walk past the start of the range
+        while (current != null && !current.transaction.getDate().before(from)) {
+            if (current.transaction.getDate().before(to)) {
+                transactions.add(current.transaction);
+            }
+            current = current.next;
+        }
+
+        Collections.reverse(transactions);
+
+        // Reaching the end of the list means older entries may sit in the archive
+        if (current == null && archive != null) {
+            List<Transaction> archived = archive.getTransactionsBetween(from, to);
+            archived.addAll(transactions);
+            return archived;
+        }
+        return transactions;
+    }
+
+    // Replace the time source, e.g. with a simulated clock for batch runs
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    public void setRuleEngine(RiskRuleEngine ruleEngine) {
+        this.ruleEngine = ruleEngine;
+    }
+
+    public void addListener(AccountListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(AccountListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Start keeping only recent history in memory; anything older goes to the archive
+    public void setArchive(TransactionArchive archive) {
+        this.archive = archive;
+    }
+
+    public TransactionArchive getArchive() {
+        return archive;
+    }
+
+    // Why history could not be moved to the archive, or null if the last attempt succeeded
+    public synchronized RuntimeException getArchiveFailure() {
+        return archiveFailure;
+    }
+
+    public void setIdempotencyCache(IdempotencyCache idempotencyCache) {
+        this.idempotencyCache = idempotencyCache;
+    }
+
+    public String getLastRejection() {
+        return lastRejection;
+    }
+
+    public AccountAggregates getAggregates() {
+        return aggregates;
+    }
+
+    // Method to get account type
+    public abstract String getAccountType();
+
+    @Override
+    public String toString() {
+        return getAccountType() + " - " + accountNumber + " - Balance: $" + balance;
+    }
+}
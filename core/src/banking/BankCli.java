@@ -0,0 +1,367 @@
+package banking;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Command-line batch tool: runs an operation script (or stdin) against the persisted accounts.
+// Lines are parsed on the calling thread and executed by worker threads, with every command for a
+// given account routed to the same worker so per-account order matches the script.
+// A run is posted at a single business time: every command sees the clock as it was when the run
+// started, so interest on the average balance since the last credit does not depend on how long the
+// script takes. Request ids are remembered in the state directory for a day, across runs.
+//
+//   create savings|current|fd <number> <initial balance> <minimum balance|overdraft limit|yyyy-MM-dd>
+//   deposit <number> <amount> [request id]
+//   withdraw <number> <amount> [request id]
+//   balance <number>
+//   interest <rate>
+public class BankCli {
+    private static final int QUEUE_CAPACITY = 8192;
+    private static final int REQUEST_CAPACITY = 1 << 20;
+    private static final long REQUEST_TTL_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private static final class Command {
+        private final long line;
+        private final String[] args;
+
+        Command(long line, String[] args) {
+            this.line = line;
+            this.args = args;
+        }
+    }
+
+    private static final Command END = new Command(-1, new String[0]);
+
+    private final AccountRegistry registry;
+    private final AccountStore store;
+    private final int threads;
+    private final BufferedWriter out;
+    private final IdempotencyCache idempotencyCache;
+    private final Map<String, LongAdder> executed = new ConcurrentHashMap<>();
+    private final LongAdder failed = new LongAdder();
+
+    // requests holds the results of keyed commands, including those loaded from earlier runs
+    public BankCli(AccountRegistry registry, AccountStore store, IdempotencyCache requests, int threads,
+                   BufferedWriter out) {
+        this.registry = registry;
+        this.store = store;
+        this.idempotencyCache = requests;
+        this.threads = threads;
+        this.out = out;
+        for (BankAccount account : registry.all()) {
+            account.setIdempotencyCache(idempotencyCache);
+        }
+    }
+
+    // Execute every command from the reader; returns the number of commands read
+    public long run(BufferedReader script) throws IOException {
+        List<BlockingQueue<Command>> queues = new ArrayList<>(threads);
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            BlockingQueue<Command> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            int shard = i;
+            queues.add(queue);
+            workers.add(new Thread(() -> work(queue, shard), "cli-worker-" + i));
+        }
+        workers.forEach(Thread::start);
+
+        long lineNumber = 0;
+        long commands = 0;
+        try {
+            String line;
+            while ((line = script.readLine()) != null) {
+                long number = ++lineNumber;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                Command command = new Command(number, trimmed.split("\\s+"));
+                commands++;
+
+                String verb = command.args[0].toLowerCase(Locale.ROOT);
+                if (verb.equals("interest")) {
+                    // Checked here so a bad rate is reported once rather than by every worker
+                    try {
+                        parseFinite(command.args, 1, "rate");
+                    } catch (IllegalArgumentException e) {
+                        report(command, "ERR " + e.getMessage());
+                        continue;
+                    }
+                    // Each worker credits interest to its own accounts, in script order
+                    for (BlockingQueue<Command> queue : queues) {
+                        queue.put(command);
+                    }
+                } else if (command.args.length < 2) {
+                    report(command, "ERR missing account number");
+                } else {
+                    queues.get(shardOf(accountArgument(command))).put(command);
+                }
+            }
+            for (BlockingQueue<Command> queue : queues) {
+                queue.put(END);
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.forEach(Thread::interrupt);
+            throw new IOException("Interrupted while running script", e);
+        }
+        out.flush();
+        return commands;
+    }
+
+    public Map<String, Long> getExecutedCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        executed.forEach((verb, count) -> counts.put(verb, count.sum()));
+        return counts;
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    private static String accountArgument(Command command) {
+        // "create <kind> <number> ..." names the account third; every other command names it second
+        return command.args[0].equalsIgnoreCase("create") && command.args.length > 2
+                ? command.args[2] : command.args[1];
+    }
+
+    private int shardOf(String accountNumber) {
+        return (accountNumber.hashCode() & 0x7fffffff) % threads;
+    }
+
+    private void work(BlockingQueue<Command> queue, int shard) {
+        try {
+            while (true) {
+                Command command = queue.take();
+                if (command == END) {
+                    return;
+                }
+                String result;
+                try {
+                    result = execute(command, shard);
+                } catch (RuntimeException e) {
+                    result = "ERR " + e.getMessage();
+                }
+                report(command, result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String execute(Command command, int shard) {
+        String[] args = command.args;
+        String verb = args[0].toLowerCase(Locale.ROOT);
+
+        if (verb.equals("interest")) {
+            double rate = parseFinite(args, 1, "rate");
+            for (SavingsAccount account : registry.ofType(SavingsAccount.class)) {
+                if (shardOf(account.getAccountNumber()) == shard) {
+                    account.calculateInterest(rate);
+                }
+            }
+            // Every worker runs its share; only one of them reports the command
+            if (shard != 0) {
+                return null;
+            }
+            count(verb);
+            return "OK interest run at rate " + rate;
+        }
+        if (verb.equals("create")) {
+            return create(args);
+        }
+
+        BankAccount account = registry.get(args[1]);
+        if (account == null) {
+            return "ERR account " + args[1] + " not found";
+        }
+
+        switch (verb) {
+            case "deposit": {
+                double amount = parseFinite(args, 2, "amount");
+                String requestId = args.length > 3 ? args[3] : null;
+                boolean replayed = account.isReplay(requestId);
+                return outcome(verb, account.deposit(requestId, amount), replayed, account);
+            }
+            case "withdraw": {
+                double amount = parseFinite(args, 2, "amount");
+                String requestId = args.length > 3 ? args[3] : null;
+                boolean replayed = account.isReplay(requestId);
+                return outcome(verb, account.withdraw(requestId, amount), replayed, account);
+            }
+            case "balance":
+                count(verb);
+                return "OK " + account.getAccountNumber() + " balance=" + money(account.checkBalance());
+            default:
+                return "ERR unknown command " + args[0];
+        }
+    }
+
+    private String create(String[] args) {
+        String kind = argument(args, 1).toLowerCase(Locale.ROOT);
+        String number = argument(args, 2);
+        double initialBalance = parseFinite(args, 3, "initial balance");
+        if (!isValidAccountNumber(number)) {
+            return "ERR account number " + number + " may not contain commas or control characters";
+        }
+        if (initialBalance < 0) {
+            return "ERR initial balance cannot be negative";
+        }
+
+        // Opened empty and funded afterwards, so the Initial Deposit is dated at the run's business time
+        BankAccount account;
+        switch (kind) {
+            case "savings":
+                account = new SavingsAccount(number, 0, parseFinite(args, 4, "minimum balance"));
+                break;
+            case "current":
+                account = new CurrentAccount(number, 0, parseFinite(args, 4, "overdraft limit"));
+                break;
+            case "fd":
+                Date maturity = Date.from(LocalDate.parse(argument(args, 4)).atStartOfDay(ZoneId.systemDefault()).toInstant());
+                account = new FixedDepositAccount(number, 0, maturity);
+                break;
+            default:
+                return "ERR unknown account type " + kind;
+        }
+        account.setClock(store.getClock());
+
+        if (!registry.register(account)) {
+            return "ERR account " + number + " already exists";
+        }
+        account.setIdempotencyCache(idempotencyCache);
+        store.track(account);
+        account.fund(initialBalance);
+        count("create");
+        return "OK created " + account.getAccountType() + " " + number;
+    }
+
+    // A replayed request reports the original outcome but is counted apart from commands that ran
+    private String outcome(String verb, boolean ok, boolean replayed, BankAccount account) {
+        if (!ok) {
+            String reason = replayed ? "already refused" : account.getLastRejection();
+            return "ERR " + verb + " refused for " + account.getAccountNumber()
+                    + (reason != null ? ": " + reason : "") + " balance=" + money(account.checkBalance());
+        }
+        count(replayed ? "replayed" : verb);
+        return "OK " + verb + " " + account.getAccountNumber() + (replayed ? " (replayed)" : "")
+                + " balance=" + money(account.checkBalance());
+    }
+
+    private void count(String verb) {
+        executed.computeIfAbsent(verb, v -> new LongAdder()).increment();
+    }
+
+    private void report(Command command, String result) {
+        if (result == null) {
+            return;
+        }
+        if (result.startsWith("ERR")) {
+            failed.increment();
+        }
+        synchronized (out) {
+            try {
+                out.write(command.line + ": " + result);
+                out.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static String argument(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("missing argument " + index + " for " + args[0]);
+        }
+        return args[index];
+    }
+
+    // Finite numbers only: NaN or Infinity would be committed and poison every later run
+    private static double parseFinite(String[] args, int index, String name) {
+        String text = argument(args, index);
+        double value;
+        try {
+            value = Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + name + " " + text);
+        }
+        if (!Double.isFinite(value)) {
+            throw new IllegalArgumentException(name + " must be a finite number, not " + text);
+        }
+        return value;
+    }
+
+    // Account numbers are stored as comma-separated fields, one record per line
+    private static boolean isValidAccountNumber(String number) {
+        for (int i = 0; i < number.length(); i++) {
+            char c = number.charAt(i);
+            if (c == ',' || Character.isISOControl(c)) {
+                return false;
+            }
+        }
+        return !number.isEmpty();
+    }
+
+    private static String money(double amount) {
+        return String.format(Locale.ROOT, "%.2f", amount);
+    }
+
+    // Usage: BankCli <state directory> [script file | -] [threads]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: BankCli <state directory> [script file | -] [threads]");
+            System.exit(2);
+        }
+        Path stateDirectory = Paths.get(args[0]);
+        boolean fromStdin = args.length < 2 || args[1].equals("-");
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        AccountRegistry registry = new AccountRegistry();
+        IdempotencyCache requests = new IdempotencyCache(REQUEST_CAPACITY, REQUEST_TTL_MILLIS);
+        SimulatedClock businessTime = new SimulatedClock(System.currentTimeMillis(), ZoneId.systemDefault());
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        long started = System.nanoTime();
+
+        try (AccountStore store = new AccountStore(stateDirectory, businessTime);
+             BufferedReader script = fromStdin
+                     ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)
+                     : Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+            if (store.getDiscardedHistoryBytes() > 0) {
+                System.err.println("Discarded " + store.getDiscardedHistoryBytes()
+                        + " bytes of history from an interrupted run that never committed");
+            }
+            store.load(registry, requests);
+            BankCli cli = new BankCli(registry, store, requests, threads, out);
+            long commands = cli.run(script);
+            store.save(registry, requests);
+
+            double seconds = (System.nanoTime() - started) / 1e9;
+            System.err.printf(Locale.ROOT, "%d commands in %.2fs (%.0f/s), %d failed, %d accounts%n",
+                    commands, seconds, commands / Math.max(seconds, 1e-9), cli.getFailedCount(), registry.size());
+            cli.getExecutedCounts().forEach((verb, count) -> System.err.println("  " + verb + ": " + count));
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package banking;
 
 public interface BankOperations {
-    void deposit(double amount);
-    boolean withdraw(double amount); // ✅ change here
+    boolean deposit(double amount);
+    boolean withdraw(double amount);
     double checkBalance(); // or getBalance() if you renamed it
 }
 
@@ -1,7 +1,7 @@
 package banking;
 
 // Current Account implementation
-class CurrentAccount extends BankAccount {
+public class CurrentAccount extends BankAccount {
     private double overdraftLimit;
 
     public CurrentAccount(String accountNumber, double initialBalance, double overdraftLimit) {
@@ -10,14 +10,19 @@ class CurrentAccount extends BankAccount {
     }
 
     @Override
-    public boolean withdraw(double amount) {
+    protected boolean applyWithdrawal(double amount) {
         if (amount > 0 && (balance - amount) >= -overdraftLimit) {
-            balance -= amount;
+            adjustBalance(-amount);
             return true;
         }
         return false;
     }
 
+    @Override
+    public double getAvailableFunds() {
+        return balance + overdraftLimit;
+    }
+
     public double getOverdraftLimit() {
         return overdraftLimit;
     }
@@ -2,7 +2,7 @@ package banking;
 import java.util.Date;
 
 // Fixed Deposit Account implementation
-class FixedDepositAccount extends BankAccount {
+public class FixedDepositAccount extends BankAccount {
     private Date maturityDate;
     private boolean matured;
 
@@ -13,34 +13,35 @@ class FixedDepositAccount extends BankAccount {
     }
 
     @Override
-    public boolean withdraw(double amount) {
+    protected boolean applyWithdrawal(double amount) {
         // Can only withdraw if matured
         if (!isMatured()) {
             return false;
         }
 
         if (amount > 0 && amount <= balance) {
-            balance -= amount;
+            adjustBalance(-amount);
             return true;
         }
         return false;
     }
 
     @Override
-    public void deposit(double amount) {
+    public boolean deposit(double amount) {
         // No additional deposits allowed in fixed deposit
+        return false;
     }
 
     public boolean isMatured() {
         // Check if current date is after maturity date
-        matured = new Date().after(maturityDate);
+        matured = new Date(clock.millis()).after(maturityDate);
         return matured;
     }
 
     public void applyMaturityInterest(double rate) {
         if (isMatured() && !matured) {
             double interest = balance * rate;
-            balance += interest;
+            adjustBalance(interest);
             addTransaction("Maturity Interest", interest);
             matured = true;
         }
@@ -0,0 +1,155 @@
+package banking;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+// Bounded, time-expiring cache of operation results keyed by request id.
+// Striped LRU maps keep lookups O(1) and memory capped at maxEntries.
+public class IdempotencyCache {
+    private static final int STRIPES = 16;
+
+    private static class Entry {
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private final String digest; // What was asked for, so a reused key with a different request is caught
+        private final long createdMillis;
+
+        Entry(String digest, long createdMillis) {
+            this.digest = digest;
+            this.createdMillis = createdMillis;
+        }
+    }
+
+    private static class Stripe extends LinkedHashMap<String, Entry> {
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    // Receives remembered results, e.g. to persist them
+    public interface ResultVisitor {
+        void visit(String key, String digest, long createdMillis, Object result);
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final long ttlMillis;
+
+    public IdempotencyCache(int maxEntries, long ttlMillis) {
+        if (maxEntries < STRIPES || ttlMillis <= 0) {
+            throw new IllegalArgumentException("maxEntries must be at least " + STRIPES + " and ttl positive");
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(maxEntries / STRIPES);
+        }
+        this.ttlMillis = ttlMillis;
+    }
+
+    // Run the operation once per key; replays within the ttl get the first result back.
+    // A replay arriving while the first attempt is still running waits for it. The digest describes
+    // the request (operation and arguments); replaying a key with a different digest is refused.
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, String digest, long nowMillis, Supplier<T> operation) {
+        Stripe stripe = stripeOf(key);
+        Entry entry;
+        boolean owner = false;
+
+        synchronized (stripe) {
+            entry = stripe.get(key);
+            if (entry == null || nowMillis - entry.createdMillis > ttlMillis) {
+                entry = new Entry(digest, nowMillis);
+                stripe.put(key, entry);
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            try {
+                T result = operation.get();
+                entry.result.complete(result);
+                return result;
+            } catch (Throwable e) {
+                // Failed attempts are not remembered so the client can retry them
+                synchronized (stripe) {
+                    stripe.remove(key, entry);
+                }
+                entry.result.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        if (entry.digest != null && !entry.digest.equals(digest)) {
+            throw new IllegalArgumentException("Request " + key + " was already used for " + entry.digest
+                    + ", not " + digest);
+        }
+        try {
+            return (T) entry.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for request " + key, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Original request " + key + " failed", e.getCause());
+        }
+    }
+
+    // Whether a live entry exists for the key, i.e. execute() would not run the operation again
+    public boolean contains(String key, long nowMillis) {
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            Entry entry = stripe.get(key);
+            return entry != null && nowMillis - entry.createdMillis <= ttlMillis;
+        }
+    }
+
+    // Visit every successfully completed result still within the ttl
+    public void forEachResult(long nowMillis, ResultVisitor visitor) {
+        for (Stripe stripe : stripes) {
+            List<Map.Entry<String, Entry>> entries;
+            synchronized (stripe) {
+                entries = new ArrayList<>(stripe.entrySet());
+            }
+            for (Map.Entry<String, Entry> entry : entries) {
+                Entry value = entry.getValue();
+                if (nowMillis - value.createdMillis <= ttlMillis && value.result.isDone()
+                        && !value.result.isCompletedExceptionally()) {
+                    visitor.visit(entry.getKey(), value.digest, value.createdMillis, value.result.join());
+                }
+            }
+        }
+    }
+
+    // Remember a result produced earlier, e.g. by a previous run; a null digest matches any replay
+    public void restore(String key, String digest, long createdMillis, Object result) {
+        Entry entry = new Entry(digest, createdMillis);
+        entry.result.complete(result);
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            stripe.put(key, entry);
+        }
+    }
+
+    private Stripe stripeOf(String key) {
+        return stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,113 @@
+package banking;
+
+// Accrues balance x time and tiered interest incrementally on every balance change.
+// Both accumulators only ever grow, so the amount for any window between two marks is a subtraction.
+public class InterestAccrual {
+    private static final double MILLIS_PER_DAY = 86_400_000.0;
+
+    private InterestSchedule schedule;
+    private double balance;
+    private long lastChangeMillis;
+
+    private double balanceDays;      // Integral of balance over time, in balance-days
+    private double accruedInterest;  // Interest accrued under the schedule since creation
+
+    // Values at the last posting
+    private long postedMillis;
+    private double postedBalanceDays;
+    private double postedInterest;
+
+    public InterestAccrual(InterestSchedule schedule, double openingBalance, long nowMillis) {
+        this.schedule = schedule;
+        this.balance = openingBalance;
+        this.lastChangeMillis = nowMillis;
+        this.postedMillis = nowMillis;
+    }
+
+    // Accrue up to now at the old balance, then continue at the new one
+    public synchronized void balanceChanged(double newBalance, long nowMillis) {
+        advance(nowMillis);
+        balance = newBalance;
+    }
+
+    // Rates apply from now on; accrual so far stays at the old rates
+    public synchronized void setSchedule(InterestSchedule schedule, long nowMillis) {
+        advance(nowMillis);
+        this.schedule = schedule;
+    }
+
+    // Interest accrued under the schedule since the last posting
+    public synchronized double getAccruedInterest(long nowMillis) {
+        return accruedInterest + pending(nowMillis, true) - postedInterest;
+    }
+
+    // Time-weighted average balance since the last posting
+    public synchronized double getAverageBalance(long nowMillis) {
+        double days = (nowMillis - postedMillis) / MILLIS_PER_DAY;
+        if (days <= 0) {
+            return balance;
+        }
+        return (balanceDays + pending(nowMillis, false) - postedBalanceDays) / days;
+    }
+
+    // Close the current accrual period and start a new one
+    public synchronized void markPosted(long nowMillis) {
+        advance(nowMillis);
+        postedMillis = nowMillis;
+        postedBalanceDays = balanceDays;
+        postedInterest = accruedInterest;
+    }
+
+    // Start a fresh period at nowMillis without accruing the gap, e.g. after the time source is replaced
+    public synchronized void restart(long nowMillis) {
+        lastChangeMillis = nowMillis;
+        postedMillis = nowMillis;
+        postedBalanceDays = balanceDays;
+        postedInterest = accruedInterest;
+    }
+
+    // Period state for persisting; read under the account lock so the four values agree
+    synchronized long getPostedMillis() {
+        return postedMillis;
+    }
+
+    synchronized long getLastChangeMillis() {
+        return lastChangeMillis;
+    }
+
+    synchronized double getBalanceDaysSincePosted() {
+        return balanceDays - postedBalanceDays;
+    }
+
+    synchronized double getInterestSincePosted() {
+        return accruedInterest - postedInterest;
+    }
+
+    // Continue a persisted period; the gap since its last change accrues at the current balance
+    synchronized void restore(long postedMillis, long lastChangeMillis, double balanceDaysSincePosted,
+                              double interestSincePosted) {
+        this.postedMillis = postedMillis;
+        this.lastChangeMillis = lastChangeMillis;
+        this.balanceDays = balanceDaysSincePosted;
+        this.postedBalanceDays = 0;
+        this.accruedInterest = interestSincePosted;
+        this.postedInterest = 0;
+    }
+
+    private void advance(long nowMillis) {
+        if (nowMillis > lastChangeMillis) {
+            balanceDays += pending(nowMillis, false);
+            accruedInterest += pending(nowMillis, true);
+            lastChangeMillis = nowMillis;
+        }
+    }
+
+    // Amount accrued at the current balance since the last change, not yet folded in
+    private double pending(long nowMillis, boolean interest) {
+        if (nowMillis <= lastChangeMillis) {
+            return 0;
+        }
+        double days = (nowMillis - lastChangeMillis) / MILLIS_PER_DAY;
+        return days * (interest ? schedule.dailyInterest(balance) : balance);
+    }
+}
@@ -0,0 +1,61 @@
+package banking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Nightly interest run across many savings accounts
+public class InterestEngine {
+    private static final int CHUNK_SIZE = 4096;
+
+    // Credit rate x average balance to every account; returns the total interest credited
+    public double postInterest(Collection<SavingsAccount> accounts, double rate) {
+        List<SavingsAccount> list = new ArrayList<>(accounts);
+        int chunks = (list.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        return IntStream.range(0, chunks).parallel().mapToDouble(chunk -> {
+            int from = chunk * CHUNK_SIZE;
+            int to = Math.min(from + CHUNK_SIZE, list.size());
+            double[] balances = new double[to - from];
+            double[] interest = new double[to - from];
+            long[] versions = new long[to - from];
+
+            for (int i = from; i < to; i++) {
+                SavingsAccount account = list.get(i);
+                synchronized (account) {
+                    versions[i - from] = account.getVersion();
+                    balances[i - from] = account.getAverageBalance();
+                }
+            }
+            multiply(balances, rate, interest);
+
+            // Credit under the account lock, redoing any account whose balance moved since it was read
+            double total = 0;
+            for (int i = from; i < to; i++) {
+                SavingsAccount account = list.get(i);
+                double credited = interest[i - from];
+                synchronized (account) {
+                    if (account.getVersion() != versions[i - from]) {
+                        credited = account.getAverageBalance() * rate;
+                    }
+                    account.creditInterest(credited);
+                }
+                total += Math.max(credited, 0);
+            }
+            return total;
+        }).sum();
+    }
+
+    // Credit whatever each account has accrued under its own tiered schedule
+    public double postAccruedInterest(Collection<SavingsAccount> accounts) {
+        return accounts.parallelStream().mapToDouble(SavingsAccount::postAccruedInterest).sum();
+    }
+
+    // Kept as a plain loop over primitive arrays so the JIT can vectorize it
+    static void multiply(double[] balances, double rate, double[] out) {
+        for (int i = 0; i < balances.length; i++) {
+            out[i] = balances[i] * rate;
+        }
+    }
+}
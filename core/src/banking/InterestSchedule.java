@@ -0,0 +1,41 @@
+package banking;
+
+import java.util.Arrays;
+
+// Tiered annual interest rates; each balance band earns its own rate (marginal tiers)
+public class InterestSchedule {
+    private static final double DAYS_PER_YEAR = 365.0;
+
+    private final double[] thresholds; // Lower bound of each band, ascending, first is 0
+    private final double[] rates;      // Annual rate for each band
+
+    public InterestSchedule(double[] thresholds, double[] rates) {
+        if (thresholds.length == 0 || thresholds.length != rates.length) {
+            throw new IllegalArgumentException("Each tier needs exactly one threshold and one rate");
+        }
+        if (thresholds[0] != 0) {
+            throw new IllegalArgumentException("The first tier must start at 0");
+        }
+        for (int i = 1; i < thresholds.length; i++) {
+            if (thresholds[i] <= thresholds[i - 1]) {
+                throw new IllegalArgumentException("Tier thresholds must be ascending");
+            }
+        }
+        this.thresholds = Arrays.copyOf(thresholds, thresholds.length);
+        this.rates = Arrays.copyOf(rates, rates.length);
+    }
+
+    public static InterestSchedule flat(double annualRate) {
+        return new InterestSchedule(new double[]{0}, new double[]{annualRate});
+    }
+
+    // Interest earned in one day at the given balance; negative balances earn nothing
+    public double dailyInterest(double balance) {
+        double interest = 0;
+        for (int i = 0; i < thresholds.length && balance > thresholds[i]; i++) {
+            double upper = i + 1 < thresholds.length ? Math.min(balance, thresholds[i + 1]) : balance;
+            interest += (upper - thresholds[i]) * rates[i];
+        }
+        return interest / DAYS_PER_YEAR;
+    }
+}
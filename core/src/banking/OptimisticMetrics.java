@@ -0,0 +1,41 @@
+package banking;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters for conditional (version-checked) updates
+public class OptimisticMetrics {
+
+    public enum Outcome { APPLIED, VERSION_CONFLICT, REJECTED }
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    Outcome record(Outcome outcome) {
+        attempts.increment();
+        if (outcome == Outcome.VERSION_CONFLICT) {
+            conflicts.increment();
+        } else if (outcome == Outcome.REJECTED) {
+            rejections.increment();
+        }
+        return outcome;
+    }
+
+    public long getAttempts() {
+        return attempts.sum();
+    }
+
+    public long getConflicts() {
+        return conflicts.sum();
+    }
+
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    // Share of attempts that lost a race and have to be retried by the client
+    public double getConflictRate() {
+        long total = attempts.sum();
+        return total == 0 ? 0 : (double) conflicts.sum() / total;
+    }
+}
@@ -0,0 +1,453 @@
+package banking;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+// Checks that every account's balance equals the sum of its transaction history.
+// Works either on live accounts or directly on an AccountStore directory, where the append-only
+// history log is scanned in parallel chunks and a checkpoint lets the next run pick up where this one stopped.
+//
+// The checkpoint is itself append-only: each run adds the totals of the accounts it saw activity for,
+// closed by a line with the new history offset and a checksum of the history bytes just before it.
+// A block without its closing line is ignored, and the file is compacted once it outgrows the accounts.
+public class ReconciliationEngine {
+    public static final String CHECKPOINT_FILE = "reconcile.checkpoint";
+
+    private static final double TOLERANCE = 0.005;
+    private static final long CHUNK_BYTES = 64L * 1024 * 1024;
+    private static final String OFFSET_RECORD = "#offset";
+    private static final int TAIL_BYTES = 4096;
+    private static final int MIN_COMPACT_LINES = 1024;
+
+    // Where the last completed run stopped, and how long the checkpoint file has grown
+    private static final class Checkpoint {
+        private long offset;
+        private long tailChecksum;
+        private long lines;
+        private boolean unfinished; // An interrupted run left a partial block at the end
+    }
+
+    // Running totals of one account's history
+    static final class HistoryTotals {
+        private double total;
+        private long count;
+        private int initialDeposits;
+
+        void add(String type, double amount) {
+            total += amount;
+            count++;
+            if (type.equals("Initial Deposit")) {
+                initialDeposits++;
+            }
+        }
+
+        void merge(HistoryTotals other) {
+            total += other.total;
+            count += other.count;
+            initialDeposits += other.initialDeposits;
+        }
+    }
+
+    // An account whose balance disagrees with its history
+    public static class Mismatch {
+        private final String accountNumber;
+        private final double balance;
+        private final double historyTotal;
+        private final long transactionCount;
+        private final String diagnosis;
+
+        Mismatch(String accountNumber, double balance, HistoryTotals totals) {
+            this.accountNumber = accountNumber;
+            this.balance = balance;
+            this.historyTotal = totals.total;
+            this.transactionCount = totals.count;
+            this.diagnosis = diagnose(balance, totals);
+        }
+
+        public String getAccountNumber() {
+            return accountNumber;
+        }
+
+        public double getBalance() {
+            return balance;
+        }
+
+        public double getHistoryTotal() {
+            return historyTotal;
+        }
+
+        public double getDifference() {
+            return balance - historyTotal;
+        }
+
+        public long getTransactionCount() {
+            return transactionCount;
+        }
+
+        public String getDiagnosis() {
+            return diagnosis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s: balance %.2f, history %.2f over %d entries (difference %.2f) - %s",
+                    accountNumber, balance, historyTotal, transactionCount, getDifference(), diagnosis);
+        }
+    }
+
+    public static class Report {
+        private final long accountsChecked;
+        private final List<Mismatch> mismatches;
+        private final long elapsedNanos;
+
+        Report(long accountsChecked, List<Mismatch> mismatches, long elapsedNanos) {
+            this.accountsChecked = accountsChecked;
+            this.mismatches = Collections.unmodifiableList(mismatches);
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getAccountsChecked() {
+            return accountsChecked;
+        }
+
+        public List<Mismatch> getMismatches() {
+            return mismatches;
+        }
+
+        public boolean isClean() {
+            return mismatches.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d accounts checked in %.2fs, %d mismatched",
+                    accountsChecked, elapsedNanos / 1e9, mismatches.size());
+        }
+    }
+
+    // Reconcile live accounts, reading history across every tier
+    public Report reconcile(Collection<? extends BankAccount> accounts) {
+        long started = System.nanoTime();
+        Date beginning = new Date(Long.MIN_VALUE);
+        Date end = new Date(Long.MAX_VALUE);
+
+        List<Mismatch> mismatches = accounts.parallelStream()
+                .map(account -> {
+                    HistoryTotals totals = new HistoryTotals();
+                    double balance;
+                    synchronized (account) {
+                        // Folded-away history survives only as the archive's opening balance
+                        TransactionArchive archive = account.getArchive();
+                        if (archive != null) {
+                            totals.total += archive.getCheckpointBalance();
+                        }
+                        for (Transaction transaction : account.getTransactionsBetween(beginning, end)) {
+                            totals.add(transaction.getType(), transaction.getAmount());
+                        }
+                        balance = account.checkBalance();
+                    }
+                    return mismatched(balance, totals.total)
+                            ? new Mismatch(account.getAccountNumber(), balance, totals) : null;
+                })
+                .filter(mismatch -> mismatch != null)
+                .sorted(Comparator.comparing(Mismatch::getAccountNumber))
+                .collect(Collectors.toList());
+
+        return new Report(accounts.size(), mismatches, System.nanoTime() - started);
+    }
+
+    // Reconcile an AccountStore directory. Only history appended since the last checkpoint is read.
+    public Report reconcile(Path stateDirectory) throws IOException {
+        long started = System.nanoTime();
+        Path checkpointFile = stateDirectory.resolve(CHECKPOINT_FILE);
+        Map<String, HistoryTotals> totals = new ConcurrentHashMap<>();
+        Checkpoint checkpoint = readCheckpoint(checkpointFile, totals);
+
+        // History past what the snapshot covers belongs to a run that has not committed
+        Path history = stateDirectory.resolve(AccountStore.HISTORY_FILE);
+        if (checkpoint.offset > 0) {
+            verifyHistory(history, checkpoint);
+        }
+        if (Files.exists(history)) {
+            Map<String, HistoryTotals> delta = new HashMap<>();
+            long end = scanHistory(history, checkpoint.offset, AccountStore.committedHistoryLength(stateDirectory),
+                    delta);
+            if (end > checkpoint.offset || checkpoint.unfinished) {
+                mergeInto(totals, delta);
+                long tailChecksum = tailChecksum(history, end);
+                if (checkpoint.unfinished
+                        || checkpoint.lines + delta.size() + 1 > Math.max(MIN_COMPACT_LINES, 2L * totals.size())) {
+                    writeCheckpoint(checkpointFile, end, tailChecksum, totals);
+                } else {
+                    appendCheckpoint(checkpointFile, end, tailChecksum, delta);
+                }
+            }
+        }
+
+        // Compare against the account snapshot, also in parallel
+        List<String> accounts;
+        try (BufferedReader reader = Files.newBufferedReader(stateDirectory.resolve(AccountStore.ACCOUNTS_FILE),
+                StandardCharsets.UTF_8)) {
+            accounts = reader.lines().filter(AccountStore::isAccountRecord).collect(Collectors.toList());
+        }
+
+        List<Mismatch> mismatches = accounts.parallelStream()
+                .map(line -> {
+                    String[] fields = line.split(",", -1);
+                    double balance = Double.parseDouble(fields[2]);
+                    HistoryTotals account = totals.getOrDefault(fields[1], new HistoryTotals());
+                    return mismatched(balance, account.total)
+                            ? new Mismatch(fields[1], balance, account) : null;
+                })
+                .filter(mismatch -> mismatch != null)
+                .sorted(Comparator.comparing(Mismatch::getAccountNumber))
+                .collect(Collectors.toList());
+
+        return new Report(accounts.size(), mismatches, System.nanoTime() - started);
+    }
+
+    // Sum complete lines from offset up to committed (-1 for the whole file) in parallel,
+    // newline-aligned chunks; returns the new offset
+    private static long scanHistory(Path history, long offset, long committed, Map<String, HistoryTotals> totals)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(history, StandardOpenOption.READ)) {
+            long available = committed < 0 ? channel.size() : Math.min(committed, channel.size());
+            long end = lastCompleteLine(channel, offset, available);
+            if (end <= offset) {
+                return offset;
+            }
+
+            List<long[]> chunks = new ArrayList<>();
+            for (long start = offset; start < end; ) {
+                long limit = start + CHUNK_BYTES >= end ? end : lastCompleteLine(channel, start, start + CHUNK_BYTES);
+                if (limit <= start) {
+                    limit = end; // A single line longer than a chunk; take the rest
+                }
+                chunks.add(new long[]{start, limit});
+                start = limit;
+            }
+
+            List<Map<String, HistoryTotals>> partials = IntStream.range(0, chunks.size()).parallel()
+                    .mapToObj(i -> scanChunk(channel, chunks.get(i)[0], chunks.get(i)[1]))
+                    .collect(Collectors.toList());
+            for (Map<String, HistoryTotals> partial : partials) {
+                mergeInto(totals, partial);
+            }
+            return end;
+        }
+    }
+
+    // NaN never compares within tolerance, so a NaN or infinite balance or total is always reported
+    private static boolean mismatched(double balance, double total) {
+        return !(Math.abs(balance - total) <= TOLERANCE);
+    }
+
+    // Parses straight out of the mapping; only the current line is copied onto the heap
+    private static Map<String, HistoryTotals> scanChunk(FileChannel channel, long start, long end) {
+        Map<String, HistoryTotals> totals = new HashMap<>();
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            byte[] bytes = new byte[256];
+            int length = 0;
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (b != '\n') {
+                    if (length == bytes.length) {
+                        bytes = Arrays.copyOf(bytes, length * 2);
+                    }
+                    bytes[length++] = b;
+                    continue;
+                }
+                String line = new String(bytes, 0, length, StandardCharsets.UTF_8).trim();
+                length = 0;
+                if (!line.isEmpty()) {
+                    Transaction transaction = AccountStore.parseTransaction(line.split(",", -1));
+                    String account = line.substring(0, line.indexOf(','));
+                    totals.computeIfAbsent(account, k -> new HistoryTotals())
+                            .add(transaction.getType(), transaction.getAmount());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return totals;
+    }
+
+    // Position just past the last newline in [from, to), or from if there is none
+    private static long lastCompleteLine(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        for (long position = to; position > from; ) {
+            long blockStart = Math.max(from, position - buffer.capacity());
+            buffer.clear().limit((int) (position - blockStart));
+            channel.read(buffer, blockStart);
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return blockStart + i + 1;
+                }
+            }
+            position = blockStart;
+        }
+        return from;
+    }
+
+    private static void mergeInto(Map<String, HistoryTotals> totals, Map<String, HistoryTotals> more) {
+        more.forEach((account, sums) -> totals.merge(account, sums, (a, b) -> {
+            a.merge(b);
+            return a;
+        }));
+    }
+
+    // The history must still contain everything the checkpoint counted, unchanged
+    private static void verifyHistory(Path history, Checkpoint checkpoint) throws IOException {
+        long size = Files.exists(history) ? Files.size(history) : 0;
+        if (size < checkpoint.offset || tailChecksum(history, checkpoint.offset) != checkpoint.tailChecksum) {
+            throw new IOException(history + " was truncated or replaced since the last reconciliation (checkpoint at "
+                    + checkpoint.offset + " of " + size + " bytes); delete " + CHECKPOINT_FILE + " to rescan it");
+        }
+    }
+
+    // CRC of the bytes just before position, enough to notice the file being swapped for another
+    private static long tailChecksum(Path history, long position) throws IOException {
+        int length = (int) Math.min(TAIL_BYTES, position);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try (FileChannel channel = FileChannel.open(history, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position - length + buffer.position()) < 0) {
+                    break;
+                }
+            }
+        }
+        buffer.flip();
+        CRC32 crc = new CRC32();
+        crc.update(buffer);
+        return crc.getValue();
+    }
+
+    // Lines are per-account totals to add; each run's block ends with "#offset,<offset>,<checksum>"
+    private static Checkpoint readCheckpoint(Path file, Map<String, HistoryTotals> totals) throws IOException {
+        Checkpoint checkpoint = new Checkpoint();
+        if (!Files.exists(file)) {
+            return checkpoint;
+        }
+        Map<String, HistoryTotals> block = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",", -1);
+                try {
+                    if (fields[0].equals(OFFSET_RECORD)) {
+                        long offset = Long.parseLong(fields[1]);
+                        checkpoint.tailChecksum = Long.parseLong(fields[2]);
+                        checkpoint.offset = offset;
+                        mergeInto(totals, block);
+                        block = new HashMap<>();
+                    } else {
+                        HistoryTotals account = new HistoryTotals();
+                        account.total = Double.parseDouble(fields[1]);
+                        account.count = Long.parseLong(fields[2]);
+                        account.initialDeposits = Integer.parseInt(fields[3]);
+                        block.merge(fields[0], account, (a, b) -> {
+                            a.merge(b);
+                            return a;
+                        });
+                    }
+                } catch (RuntimeException e) {
+                    break; // A line cut short by an interrupted append
+                }
+                checkpoint.lines++;
+            }
+            // Anything after the last offset line belongs to a run that never finished writing
+            checkpoint.unfinished = line != null || !block.isEmpty();
+        }
+        return checkpoint;
+    }
+
+    private static void appendCheckpoint(Path file, long offset, long tailChecksum, Map<String, HistoryTotals> delta)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+             BufferedWriter writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8))) {
+            writeBlock(writer, offset, tailChecksum, delta);
+            writer.flush();
+            channel.force(false);
+        }
+    }
+
+    // Compaction: the full totals as a single block, swapped in atomically
+    private static void writeCheckpoint(Path file, long offset, long tailChecksum, Map<String, HistoryTotals> totals)
+            throws IOException {
+        Path temp = file.resolveSibling(CHECKPOINT_FILE + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writeBlock(writer, offset, tailChecksum, totals);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeBlock(BufferedWriter writer, long offset, long tailChecksum,
+                                   Map<String, HistoryTotals> totals) throws IOException {
+        for (Map.Entry<String, HistoryTotals> entry : totals.entrySet()) {
+            HistoryTotals account = entry.getValue();
+            writer.write(entry.getKey() + "," + account.total + "," + account.count + "," + account.initialDeposits);
+            writer.newLine();
+        }
+        writer.write(OFFSET_RECORD + "," + offset + "," + tailChecksum);
+        writer.newLine();
+    }
+
+    // Best guess at why an account drifted, from the shape of its history
+    static String diagnose(double balance, HistoryTotals totals) {
+        double difference = balance - totals.total;
+        if (totals.count == 0) {
+            return "no transaction history";
+        }
+        if (totals.initialDeposits > 1) {
+            return totals.initialDeposits + " Initial Deposit entries; opening balance recorded more than once";
+        }
+        if (difference > 0) {
+            return "balance exceeds history; a balance change was not recorded";
+        }
+        return "history exceeds balance; a recorded transaction did not change the balance";
+    }
+
+    // Usage: ReconciliationEngine <state directory>
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ReconciliationEngine <state directory>");
+            System.exit(2);
+        }
+        Report report = new ReconciliationEngine().reconcile(Paths.get(args[0]));
+        for (Mismatch mismatch : report.getMismatches()) {
+            System.out.println(mismatch);
+        }
+        System.err.println(report);
+        if (!report.isClean()) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package banking;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Accounts ordered by headroom, kept current on every balance change:
+// Current accounts in overdraft by balance, and Savings accounts by distance above their minimum.
+public class RiskIndex implements AccountListener {
+
+    private static final class Entry {
+        private final double key;
+        private final BankAccount account;
+
+        Entry(double key, BankAccount account) {
+            this.key = key;
+            this.account = account;
+        }
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator.<Entry>comparingDouble(e -> e.key)
+            .thenComparing(e -> e.account.getAccountNumber());
+
+    private final NavigableSet<Entry> overdrawn = new ConcurrentSkipListSet<>(ORDER);
+    private final NavigableSet<Entry> savingsHeadroom = new ConcurrentSkipListSet<>(ORDER);
+    private final ConcurrentMap<String, Entry> current = new ConcurrentHashMap<>();
+
+    @Override
+    public void accountRegistered(BankAccount account) {
+        update(account);
+    }
+
+    @Override
+    public void balanceChanged(BankAccount account, double oldBalance) {
+        update(account);
+    }
+
+    // Current accounts using their overdraft, most overdrawn first
+    public List<CurrentAccount> getOverdrawnAccounts() {
+        return mostOverdrawn(Integer.MAX_VALUE);
+    }
+
+    public List<CurrentAccount> mostOverdrawn(int n) {
+        List<CurrentAccount> result = new ArrayList<>();
+        for (Entry entry : overdrawn) {
+            if (result.size() >= n) {
+                break;
+            }
+            result.add((CurrentAccount) entry.account);
+        }
+        return result;
+    }
+
+    public int getOverdrawnCount() {
+        return overdrawn.size();
+    }
+
+    // Savings accounts whose balance is at most `within` above their minimum balance, closest first
+    public List<SavingsAccount> nearMinimumBalance(double within) {
+        List<SavingsAccount> result = new ArrayList<>();
+        for (Entry entry : savingsHeadroom) {
+            if (entry.key > within) {
+                break;
+            }
+            result.add((SavingsAccount) entry.account);
+        }
+        return result;
+    }
+
+    // Re-file the account under its new key; compute keeps updates for one account in order
+    private void update(BankAccount account) {
+        NavigableSet<Entry> index;
+        double key;
+        if (account instanceof CurrentAccount) {
+            index = overdrawn;
+            key = account.checkBalance();
+        } else if (account instanceof SavingsAccount) {
+            index = savingsHeadroom;
+            key = account.checkBalance() - ((SavingsAccount) account).getMinimumBalance();
+        } else {
+            return;
+        }
+
+        current.compute(account.getAccountNumber(), (number, old) -> {
+            if (old != null) {
+                index.remove(old);
+            }
+            // Current accounts are only indexed while they are overdrawn
+            if (index == overdrawn && key >= 0) {
+                return null;
+            }
+            Entry entry = new Entry(key, account);
+            index.add(entry);
+            return entry;
+        });
+    }
+}
@@ -0,0 +1,112 @@
+package banking;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Fraud and velocity rules evaluated inline before every withdrawal
+public class RiskRuleEngine {
+
+    // Sliding windows tracked per account, with the bucket count used for each
+    public enum Window {
+        MINUTE(60_000L, 12),
+        HOUR(3_600_000L, 12),
+        DAY(86_400_000L, 24);
+
+        private final long millis;
+        private final int buckets;
+
+        Window(long millis, int buckets) {
+            this.millis = millis;
+            this.buckets = buckets;
+        }
+    }
+
+    // Per-account withdrawal history, one counter per window
+    private static class AccountWindows {
+        private final SlidingWindowCounter[] counters = new SlidingWindowCounter[Window.values().length];
+
+        AccountWindows() {
+            for (Window window : Window.values()) {
+                counters[window.ordinal()] = new SlidingWindowCounter(window.millis, window.buckets);
+            }
+        }
+    }
+
+    private final double largeAmountThreshold;
+    private final double rapidDrainFraction;
+    private final int[] maxCount = new int[Window.values().length];
+    private final double[] maxSum = new double[Window.values().length];
+    private final ConcurrentMap<String, AccountWindows> windows = new ConcurrentHashMap<>();
+
+    // rapidDrainFraction is the share of an account's available funds that may leave it within an hour
+    public RiskRuleEngine(double largeAmountThreshold, double rapidDrainFraction) {
+        this.largeAmountThreshold = largeAmountThreshold;
+        this.rapidDrainFraction = rapidDrainFraction;
+        for (Window window : Window.values()) {
+            maxCount[window.ordinal()] = Integer.MAX_VALUE;
+            maxSum[window.ordinal()] = Double.MAX_VALUE;
+        }
+    }
+
+    public void setVelocityLimit(Window window, int count, double sum) {
+        maxCount[window.ordinal()] = count;
+        maxSum[window.ordinal()] = sum;
+    }
+
+    // Returns a description of the first rule the withdrawal breaks, or null if it may proceed
+    public String check(BankAccount account, double amount, long nowMillis) {
+        if (amount > largeAmountThreshold) {
+            return "Amount exceeds the single withdrawal limit of " + money(largeAmountThreshold);
+        }
+
+        AccountWindows state = windows.get(account.getAccountNumber());
+        double drained = 0;
+        if (state != null) {
+            synchronized (state) {
+                for (Window window : Window.values()) {
+                    SlidingWindowCounter counter = state.counters[window.ordinal()];
+                    if (counter.getCount(nowMillis) + 1 > maxCount[window.ordinal()]) {
+                        return "Too many withdrawals in the last " + name(window);
+                    }
+                    if (counter.getSum(nowMillis) + amount > maxSum[window.ordinal()]) {
+                        return "Withdrawals in the last " + name(window) + " would exceed "
+                                + money(maxSum[window.ordinal()]);
+                    }
+                }
+                drained = state.counters[Window.HOUR.ordinal()].getSum(nowMillis);
+            }
+        }
+
+        // A matured fixed deposit is meant to be paid out in one go
+        if (account instanceof FixedDepositAccount && ((FixedDepositAccount) account).isMatured()) {
+            return null;
+        }
+
+        // Compare what would leave within the hour against what was available at its start,
+        // counting overdraft headroom as available
+        double heldAtStart = account.getAvailableFunds() + drained;
+        if (heldAtStart > 0 && (drained + amount) / heldAtStart > rapidDrainFraction) {
+            return "Account is being drained too quickly";
+        }
+        return null;
+    }
+
+    // Record a withdrawal that went through
+    public void record(BankAccount account, double amount, long nowMillis) {
+        AccountWindows state = windows.computeIfAbsent(account.getAccountNumber(), k -> new AccountWindows());
+        synchronized (state) {
+            for (SlidingWindowCounter counter : state.counters) {
+                counter.add(amount, nowMillis);
+            }
+        }
+    }
+
+    private static String name(Window window) {
+        return window.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static String money(double amount) {
+        return String.format(Locale.ROOT, "$%.2f", amount);
+    }
+}
@@ -0,0 +1,100 @@
+package banking;
+
+import java.time.Clock;
+
+// Savings Account implementation
+public class SavingsAccount extends BankAccount {
+    private double minimumBalance;
+    private final InterestAccrual accrual;
+
+    public SavingsAccount(String accountNumber, double initialBalance, double minimumBalance) {
+        this(accountNumber, initialBalance, minimumBalance, InterestSchedule.flat(0));
+    }
+
+    public SavingsAccount(String accountNumber, double initialBalance, double minimumBalance,
+                          InterestSchedule schedule) {
+        super(accountNumber, initialBalance);
+        this.minimumBalance = minimumBalance;
+        this.accrual = new InterestAccrual(schedule, balance, clock.millis());
+    }
+
+    @Override
+    protected boolean applyWithdrawal(double amount) {
+        if (amount > 0 && (balance - amount) >= minimumBalance) {
+            adjustBalance(-amount);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    protected void balanceChanged(double oldBalance) {
+        accrual.balanceChanged(balance, clock.millis());
+    }
+
+    @Override
+    void setClock(Clock clock) {
+        super.setClock(clock);
+        accrual.restart(clock.millis());
+    }
+
+    InterestAccrual getAccrual() {
+        return accrual;
+    }
+
+    public double getMinimumBalance() {
+        return minimumBalance;
+    }
+
+    public void setInterestSchedule(InterestSchedule schedule) {
+        accrual.setSchedule(schedule, clock.millis());
+    }
+
+    // Average daily balance since interest was last credited
+    public double getAverageBalance() {
+        return accrual.getAverageBalance(clock.millis());
+    }
+
+    // Interest accrued under the tiered schedule since it was last credited
+    public double getAccruedInterest() {
+        return accrual.getAccruedInterest(clock.millis());
+    }
+
+    // Credit interest for the period at the given rate, on the average balance rather than today's
+    public synchronized void calculateInterest(double rate) {
+        creditInterest(getAverageBalance() * rate);
+    }
+
+    // Idempotent form of calculateInterest; returns the interest credited by the original request
+    public double calculateInterest(String requestId, double rate) {
+        return idempotent(requestId, "interest:" + rate, () -> {
+            synchronized (this) {
+                double interest = getAverageBalance() * rate;
+                creditInterest(interest);
+                return Math.max(interest, 0);
+            }
+        });
+    }
+
+    // Credit whatever has accrued under the tiered schedule; returns the interest credited
+    public synchronized double postAccruedInterest() {
+        double interest = getAccruedInterest();
+        creditInterest(interest);
+        return Math.max(interest, 0);
+    }
+
+    // Close the accrual period and credit the interest, all under the account lock
+    synchronized void creditInterest(double interest) {
+        long now = clock.millis();
+        accrual.markPosted(now);
+        if (interest > 0) {
+            adjustBalance(interest);
+            addTransaction("Interest Credit", interest);
+        }
+    }
+
+    @Override
+    public String getAccountType() {
+        return "Savings Account";
+    }
+}
@@ -0,0 +1,40 @@
+package banking;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+
+// Clock whose time is set explicitly, so batch and load runs see reproducible timestamps
+public class SimulatedClock extends Clock {
+    private final ZoneId zone;
+    private volatile long millis;
+
+    public SimulatedClock(long startMillis, ZoneId zone) {
+        this.millis = startMillis;
+        this.zone = zone;
+    }
+
+    public void setMillis(long millis) {
+        this.millis = millis;
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return new SimulatedClock(millis, zone);
+    }
+}
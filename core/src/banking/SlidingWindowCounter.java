@@ -0,0 +1,60 @@
+package banking;
+
+// Count and sum of events over a sliding time window, kept in a fixed ring of buckets.
+// Memory is fixed per counter and each update or query clears at most one lap of buckets.
+class SlidingWindowCounter {
+    private final long bucketMillis;
+    private final int[] counts;
+    private final double[] sums;
+    private long currentBucket; // Absolute bucket number of the newest bucket
+    private int count;
+    private double sum;
+
+    SlidingWindowCounter(long windowMillis, int buckets) {
+        this.bucketMillis = Math.max(1, windowMillis / buckets);
+        this.counts = new int[buckets];
+        this.sums = new double[buckets];
+    }
+
+    void add(double amount, long nowMillis) {
+        advance(nowMillis);
+        int index = (int) (currentBucket % counts.length);
+        counts[index]++;
+        sums[index] += amount;
+        count++;
+        sum += amount;
+    }
+
+    int getCount(long nowMillis) {
+        advance(nowMillis);
+        return count;
+    }
+
+    double getSum(long nowMillis) {
+        advance(nowMillis);
+        return sum;
+    }
+
+    // Drop buckets that have slid out of the window
+    private void advance(long nowMillis) {
+        long bucket = nowMillis / bucketMillis;
+        if (bucket <= currentBucket) {
+            return;
+        }
+
+        long stale = Math.min(bucket - currentBucket, counts.length);
+        for (long b = currentBucket + 1; b <= currentBucket + stale; b++) {
+            int index = (int) (b % counts.length);
+            count -= counts[index];
+            sum -= sums[index];
+            counts[index] = 0;
+            sums[index] = 0;
+        }
+        if (stale == counts.length) {
+            // A full lap cleared everything; reset to avoid floating point drift
+            count = 0;
+            sum = 0;
+        }
+        currentBucket = bucket;
+    }
+}
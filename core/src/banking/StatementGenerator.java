@@ -0,0 +1,252 @@
+package banking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Generates period statements for many accounts in parallel into a single output file
+public class StatementGenerator {
+
+    public enum Format { TEXT, CSV }
+
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private final Format format;
+    private final int threads;
+    private final int maxInFlight;
+
+    public StatementGenerator(Format format) {
+        this(format, Runtime.getRuntime().availableProcessors(), 1024);
+    }
+
+    // maxInFlight caps how many rendered statements may sit in memory waiting to be written
+    public StatementGenerator(Format format, int threads, int maxInFlight) {
+        if (threads <= 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("threads and maxInFlight must be positive");
+        }
+        this.format = format;
+        this.threads = threads;
+        this.maxInFlight = maxInFlight;
+    }
+
+    // Write a statement for every account covering [from, to), in the order the accounts are given;
+    // returns the number of statements written
+    public int generate(Collection<? extends BankAccount> accounts, Date from, Date to, Path output)
+            throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (format == Format.CSV) {
+                write(channel, "account,type,date,description,amount,balance\n");
+            }
+
+            InOrderWriter writer = new InOrderWriter(channel, inFlight, failure);
+            long index = 0;
+            for (BankAccount account : accounts) {
+                if (failure.get() != null) {
+                    break;
+                }
+                inFlight.acquireUninterruptibly();
+                long position = index++;
+                pool.execute(() -> {
+                    String statement = null;
+                    try {
+                        statement = render(account, from, to);
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        writer.completed(position, statement);
+                    }
+                });
+            }
+
+            pool.shutdown();
+            try {
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Statement generation interrupted", e);
+            }
+
+            Throwable failed = failure.get();
+            if (failed instanceof IOException) {
+                throw (IOException) failed;
+            } else if (failed instanceof RuntimeException) {
+                throw (RuntimeException) failed;
+            } else if (failed instanceof Error) {
+                throw (Error) failed;
+            } else if (failed != null) {
+                throw new IOException("Statement generation failed", failed);
+            }
+            return writer.getWritten();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Writes rendered statements in input order. A finished statement waits here until every earlier one
+    // is written, still holding its in-flight permit, so the reorder buffer stays within maxInFlight.
+    private static class InOrderWriter {
+        private final FileChannel channel;
+        private final Semaphore inFlight;
+        private final AtomicReference<Throwable> failure;
+        private final Map<Long, String> finished = new HashMap<>();
+        private long next;
+        private int written;
+
+        InOrderWriter(FileChannel channel, Semaphore inFlight, AtomicReference<Throwable> failure) {
+            this.channel = channel;
+            this.inFlight = inFlight;
+            this.failure = failure;
+        }
+
+        // statement is null when rendering failed; its slot is skipped
+        synchronized void completed(long position, String statement) {
+            finished.put(position, statement);
+            while (finished.containsKey(next)) {
+                String text = finished.remove(next++);
+                try {
+                    if (text != null && failure.get() == null) {
+                        write(channel, text);
+                        written++;
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    inFlight.release();
+                }
+            }
+        }
+
+        synchronized int getWritten() {
+            return written;
+        }
+    }
+
+    // Render a single account's statement for [from, to). Entries folded into the archive checkpoint are
+    // gone, so a period reaching back past it starts just after the checkpoint instead.
+    public String render(BankAccount account, Date from, Date to) {
+        List<Transaction> sinceStart;
+        double balance;
+        Date folded;
+        // History and balance are read together so a concurrent operation cannot skew the boundaries
+        synchronized (account) {
+            folded = account.getArchive() == null ? null : account.getArchive().getCheckpointDate();
+            if (folded != null && !folded.before(from)) {
+                if (!folded.before(to)) {
+                    throw new IllegalArgumentException("Statement period for " + account.getAccountNumber()
+                            + " ends before its retained history starts at " + DATE_FORMAT.format(folded.toInstant()));
+                }
+                from = new Date(folded.getTime() + 1);
+            } else {
+                folded = null;
+            }
+            sinceStart = account.getTransactionsBetween(from, new Date(Long.MAX_VALUE));
+            balance = account.checkBalance();
+        }
+
+        // Work back from the current balance to the balances at the period boundaries
+        double inPeriod = 0;
+        double afterPeriod = 0;
+        int periodCount = 0;
+        for (Transaction transaction : sinceStart) {
+            if (transaction.getDate().before(to)) {
+                inPeriod += transaction.getAmount();
+                periodCount++;
+            } else {
+                afterPeriod += transaction.getAmount();
+            }
+        }
+        double closing = balance - afterPeriod;
+        double opening = closing - inPeriod;
+
+        StringBuilder out = new StringBuilder(256 + periodCount * 64);
+        String number = account.getAccountNumber();
+        String type = account.getAccountType();
+        double running = opening;
+        double interest = 0;
+
+        if (format == Format.CSV) {
+            row(out, number, type, from, "Opening Balance", 0, opening);
+        } else {
+            out.append("Statement for ").append(type).append(" ").append(number).append('\n');
+            out.append("Period: ").append(DATE_FORMAT.format(from.toInstant()))
+                    .append(" to ").append(DATE_FORMAT.format(to.toInstant())).append('\n');
+            if (folded != null) {
+                out.append("Entries up to ").append(DATE_FORMAT.format(folded.toInstant()))
+                        .append(" are no longer retained; the statement starts after them\n");
+            }
+            out.append("Opening Balance: ").append(money(opening)).append('\n');
+        }
+
+        for (int i = 0; i < periodCount; i++) {
+            Transaction transaction = sinceStart.get(i);
+            running += transaction.getAmount();
+            if (transaction.getType().contains("Interest")) {
+                interest += transaction.getAmount();
+            }
+
+            if (format == Format.CSV) {
+                row(out, number, type, transaction.getDate(), transaction.getType(),
+                        transaction.getAmount(), running);
+            } else {
+                out.append("  ").append(DATE_FORMAT.format(transaction.getDate().toInstant()))
+                        .append("  ").append(transaction.getType())
+                        .append("  ").append(money(transaction.getAmount()))
+                        .append("  ").append(money(running)).append('\n');
+            }
+        }
+
+        if (format == Format.CSV) {
+            row(out, number, type, to, "Interest", interest, closing);
+            row(out, number, type, to, "Closing Balance", 0, closing);
+        } else {
+            out.append("Interest: ").append(money(interest)).append('\n');
+            out.append("Closing Balance: ").append(money(closing)).append("\n\n");
+        }
+        return out.toString();
+    }
+
+    private static void row(StringBuilder out, String number, String type, Date date,
+                            String description, double amount, double balance) {
+        out.append(number).append(',').append(type).append(',')
+                .append(DATE_FORMAT.format(date.toInstant())).append(',')
+                .append(description).append(',')
+                .append(money(amount)).append(',')
+                .append(money(balance)).append('\n');
+    }
+
+    private static String money(double amount) {
+        return String.format(Locale.ROOT, "%.2f", amount);
+    }
+
+    // Each statement is written as one contiguous chunk
+    private static void write(FileChannel channel, String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        synchronized (channel) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
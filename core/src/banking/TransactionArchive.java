@@ -0,0 +1,302 @@
+package banking;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// Cold tiers of an account's history: compressed immutable segment files, and beyond those
+// a checkpointed opening balance that stands in for the oldest, folded-away entries.
+// The checkpoint is not a transaction; callers that need it read it separately.
+// The hot tier and balance live only in the account, so an archive always starts from an empty
+// directory; files left by another process are refused rather than adopted.
+public class TransactionArchive {
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    // Header of a segment file, kept in memory so range queries can skip whole segments
+    private static class Segment {
+        private final long sequence;
+        private final Path file;
+        private final int count;
+        private final long firstMillis;
+        private final long lastMillis;
+        private final double sum;
+
+        Segment(long sequence, Path file, int count, long firstMillis, long lastMillis, double sum) {
+            this.sequence = sequence;
+            this.file = file;
+            this.count = count;
+            this.firstMillis = firstMillis;
+            this.lastMillis = lastMillis;
+            this.sum = sum;
+        }
+    }
+
+    private final Path directory;
+    private final int hotLimit;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final Deque<Segment> segments = new ArrayDeque<>(); // Oldest first
+    private long nextSequence;
+    private double checkpointBalance;
+    private long checkpointMillis = Long.MIN_VALUE; // No checkpoint yet
+
+    // Keep hotLimit entries in memory, spill segmentSize entries at a time, fold beyond maxSegments
+    public TransactionArchive(Path directory, int hotLimit, int segmentSize, int maxSegments) throws IOException {
+        if (hotLimit < 0 || segmentSize <= 0 || maxSegments < 0) {
+            throw new IllegalArgumentException("Invalid history policy");
+        }
+        this.directory = directory;
+        this.hotLimit = hotLimit;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+
+        Files.createDirectories(directory);
+        requireEmpty();
+    }
+
+    public int getHotLimit() {
+        return hotLimit;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    // Whether any history has been folded into the opening balance
+    public synchronized boolean hasCheckpoint() {
+        return checkpointMillis != Long.MIN_VALUE;
+    }
+
+    // Sum of every folded-away entry, i.e. the balance before the oldest archived segment
+    public synchronized double getCheckpointBalance() {
+        return checkpointBalance;
+    }
+
+    // Date of the newest folded-away entry, or null if nothing has been folded
+    public synchronized Date getCheckpointDate() {
+        return hasCheckpoint() ? new Date(checkpointMillis) : null;
+    }
+
+    // Write entries (oldest first) leaving the hot tier as a new segment, folding the oldest segments if needed.
+    // Throws if the segment could not be written, in which case nothing was archived.
+    synchronized void append(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        try {
+            segments.addLast(writeSegment(nextSequence, transactions));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to archive transactions in " + directory, e);
+        }
+        nextSequence++;
+
+        try {
+            while (segments.size() > maxSegments) {
+                fold(segments.peekFirst());
+            }
+        } catch (IOException e) {
+            // The entries are safely in their segment; folding is retried on the next append
+        }
+    }
+
+    // Add up to n archived entries to the list, newest first
+    synchronized void collectNewest(int n, List<Transaction> out) {
+        Iterator<Segment> newestFirst = segments.descendingIterator();
+        while (n > 0 && newestFirst.hasNext()) {
+            List<Transaction> entries = readSegment(newestFirst.next());
+            for (int i = entries.size() - 1; i >= 0 && n > 0; i--, n--) {
+                out.add(entries.get(i));
+            }
+        }
+    }
+
+    // Archived entries dated within [from, to), oldest first; folded entries are not included
+    synchronized List<Transaction> getTransactionsBetween(Date from, Date to) {
+        List<Transaction> out = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.lastMillis < from.getTime() || segment.firstMillis >= to.getTime()) {
+                continue;
+            }
+            for (Transaction transaction : readSegment(segment)) {
+                if (!transaction.getDate().before(from) && transaction.getDate().before(to)) {
+                    out.add(transaction);
+                }
+            }
+        }
+        return out;
+    }
+
+    // Fold the oldest segment into the opening balance and drop its file. Nothing changes in memory
+    // until the new checkpoint is in place; it names the segment it absorbed, so a file that outlives
+    // a failed delete is recognisably stale.
+    private void fold(Segment segment) throws IOException {
+        double balance = checkpointBalance + segment.sum;
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+            out.writeDouble(balance);
+            out.writeLong(segment.lastMillis);
+            out.writeLong(segment.sequence);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+        checkpointBalance = balance;
+        checkpointMillis = segment.lastMillis;
+        segments.removeFirst();
+        Files.deleteIfExists(segment.file);
+    }
+
+    // Segments and checkpoints from an earlier process describe an account this one knows nothing about
+    private void requireEmpty() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) || name.startsWith(CHECKPOINT_FILE)) {
+                    throw new IOException(directory + " already holds archived history (" + name
+                            + "); give each account archive an empty directory");
+                }
+            }
+        }
+    }
+
+    // Segment layout: an uncompressed header (count, first and last timestamp, sum), then a
+    // deflated body of entries with dictionary-coded types and delta-encoded timestamps and amounts
+    // A segment is written under a temporary name and renamed into place once complete.
+    private Segment writeSegment(long sequence, List<Transaction> transactions) throws IOException {
+        Path file = directory.resolve(SEGMENT_PREFIX + sequence);
+        Path temp = directory.resolve(SEGMENT_PREFIX + sequence + ".tmp");
+        long firstMillis = transactions.get(0).getDate().getTime();
+        long lastMillis = transactions.get(transactions.size() - 1).getDate().getTime();
+        double sum = 0;
+        for (Transaction transaction : transactions) {
+            sum += transaction.getAmount();
+        }
+
+        // Closing the body stream finishes the deflater and frees its native state
+        try (DataOutputStream header = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)));
+             DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(header))) {
+            header.writeInt(transactions.size());
+            header.writeLong(firstMillis);
+            header.writeLong(lastMillis);
+            header.writeDouble(sum);
+
+            Map<String, Integer> types = new HashMap<>();
+            long previousMillis = firstMillis;
+            long previousCents = 0;
+
+            for (Transaction transaction : transactions) {
+                Integer type = types.get(transaction.getType());
+                if (type == null) {
+                    writeVarLong(out, types.size());
+                    out.writeUTF(transaction.getType());
+                    types.put(transaction.getType(), types.size());
+                } else {
+                    writeVarLong(out, type);
+                }
+
+                long millis = transaction.getDate().getTime();
+                writeVarLong(out, zigzag(millis - previousMillis));
+                previousMillis = millis;
+
+                // Whole-cent amounts are delta coded; anything finer is stored exactly
+                double amount = transaction.getAmount();
+                long cents = Math.round(amount * 100);
+                if (cents / 100.0 == amount) {
+                    writeVarLong(out, zigzag(cents - previousCents) << 1);
+                    previousCents = cents;
+                } else {
+                    writeVarLong(out, 1);
+                    out.writeDouble(amount);
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Segment(sequence, file, transactions.size(), firstMillis, lastMillis, sum);
+    }
+
+    private List<Transaction> readSegment(Segment segment) {
+        try (DataInputStream header = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment.file)));
+             DataInputStream in = new DataInputStream(new InflaterInputStream(header))) {
+            int count = header.readInt();
+            header.skipBytes(Long.BYTES * 2 + Double.BYTES);
+
+            List<Transaction> transactions = new ArrayList<>(count);
+            List<String> types = new ArrayList<>();
+            long millis = segment.firstMillis;
+            long cents = 0;
+
+            for (int i = 0; i < count; i++) {
+                int typeIndex = (int) readVarLong(in);
+                if (typeIndex == types.size()) {
+                    types.add(in.readUTF());
+                }
+                String type = types.get(typeIndex);
+
+                millis += unzigzag(readVarLong(in));
+
+                long encoded = readVarLong(in);
+                double amount;
+                if ((encoded & 1) == 0) {
+                    cents += unzigzag(encoded >>> 1);
+                    amount = cents / 100.0;
+                } else {
+                    amount = in.readDouble();
+                }
+                transactions.add(new Transaction(type, amount, new Date(millis)));
+            }
+            return Collections.unmodifiableList(transactions);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + segment.file, e);
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
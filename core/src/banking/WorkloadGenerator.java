@@ -0,0 +1,453 @@
+package banking;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Seeded workload driver for the account engine. Operations are routed to worker threads by
+// account, so each account sees the same order on every run and a recording replays exactly.
+public class WorkloadGenerator {
+
+    enum OpType { DEPOSIT, WITHDRAW, BALANCE, INTEREST_RUN, END }
+
+    private static final class Operation {
+        private final OpType type;
+        private final int account;
+        private final double amount;
+        private final long millis;
+
+        Operation(OpType type, int account, double amount, long millis) {
+            this.type = type;
+            this.account = account;
+            this.amount = amount;
+            this.millis = millis;
+        }
+    }
+
+    // Outcome of a run
+    public static class Result {
+        private final long operations;
+        private final long elapsedNanos;
+        private final LatencyHistogram latency;
+        private final long fingerprint;
+
+        Result(long operations, long elapsedNanos, LatencyHistogram latency, long fingerprint) {
+            this.operations = operations;
+            this.elapsedNanos = elapsedNanos;
+            this.latency = latency;
+            this.fingerprint = fingerprint;
+        }
+
+        public long getOperations() {
+            return operations;
+        }
+
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0 : operations * 1e9 / elapsedNanos;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        // Hash of every account's final state and history; equal fingerprints mean identical outcomes
+        public long getFingerprint() {
+            return fingerprint;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%d ops in %.2fs (%.0f ops/s), latency p50=%dns p99=%dns p99.9=%dns max=%dns, fingerprint=%016x",
+                    operations, elapsedNanos / 1e9, getThroughput(), latency.getPercentile(50),
+                    latency.getPercentile(99), latency.getPercentile(99.9), latency.getMax(), fingerprint);
+        }
+    }
+
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final long START_MILLIS = LocalDate.of(2026, 1, 1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final int RECORDING_MAGIC = 0x42574C31; // "BWL1"
+
+    private final long seed;
+    private final int accountCount;
+    private final long operationCount;
+    private final int threads;
+    private double savingsShare = 0.6;
+    private double currentShare = 0.3;
+    private double zipfSkew = 1.1;
+    private int simulatedDays = 90;
+    private double monthEndBurst = 4.0;
+    private double monthlyInterestRate = 0.002;
+
+    public WorkloadGenerator(long seed, int accountCount, long operationCount, int threads) {
+        if (accountCount <= 0 || operationCount < 0 || threads <= 0) {
+            throw new IllegalArgumentException("Invalid workload size");
+        }
+        this.seed = seed;
+        this.accountCount = accountCount;
+        this.operationCount = operationCount;
+        this.threads = threads;
+    }
+
+    // Share of Savings and Current accounts; the rest are Fixed Deposits
+    public void setAccountMix(double savingsShare, double currentShare) {
+        if (savingsShare < 0 || currentShare < 0 || savingsShare + currentShare > 1) {
+            throw new IllegalArgumentException("Account shares must add up to at most 1");
+        }
+        this.savingsShare = savingsShare;
+        this.currentShare = currentShare;
+    }
+
+    // Higher skew concentrates traffic on fewer hot accounts
+    public void setZipfSkew(double zipfSkew) {
+        this.zipfSkew = zipfSkew;
+    }
+
+    public void setSimulatedDays(int simulatedDays) {
+        this.simulatedDays = simulatedDays;
+    }
+
+    // How much faster operations arrive during the last days of each month
+    public void setMonthEndBurst(double monthEndBurst) {
+        this.monthEndBurst = monthEndBurst;
+    }
+
+    public void setMonthlyInterestRate(double monthlyInterestRate) {
+        this.monthlyInterestRate = monthlyInterestRate;
+    }
+
+    public Result run() {
+        return execute(createAccounts(), generate(null));
+    }
+
+    // Run the workload and write its operation stream to a file for later replay
+    public Result record(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(RECORDING_MAGIC);
+            out.writeLong(seed);
+            out.writeInt(accountCount);
+            out.writeDouble(savingsShare);
+            out.writeDouble(currentShare);
+            out.writeDouble(monthlyInterestRate);
+            return execute(createAccounts(), generate(out));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Re-run a recorded operation stream against freshly created accounts
+    public static Result replay(Path file, int threads) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != RECORDING_MAGIC) {
+                throw new IOException(file + " is not a workload recording");
+            }
+            WorkloadGenerator generator = new WorkloadGenerator(in.readLong(), in.readInt(), 0, threads);
+            generator.setAccountMix(in.readDouble(), in.readDouble());
+            generator.setMonthlyInterestRate(in.readDouble());
+
+            // The stream may only end between operations; anything that does not decode is refused
+            OpType[] types = OpType.values();
+            int accountCount = generator.accountCount;
+            OperationSource source = () -> {
+                try {
+                    int ordinal = in.read();
+                    if (ordinal < 0) {
+                        return null;
+                    }
+                    if (ordinal >= OpType.END.ordinal()) {
+                        throw new IOException(file + " holds an unknown operation type " + ordinal);
+                    }
+                    Operation operation = new Operation(types[ordinal], in.readInt(), in.readDouble(), in.readLong());
+                    boolean valid = operation.type == OpType.INTEREST_RUN ? operation.account == -1
+                            : operation.account >= 0 && operation.account < accountCount;
+                    if (!valid) {
+                        throw new IOException(file + " names account " + operation.account + " outside the recording");
+                    }
+                    return operation;
+                } catch (EOFException e) {
+                    throw new UncheckedIOException(new IOException(file + " ends in the middle of an operation", e));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+            return generator.execute(generator.createAccounts(), source);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Produces operations in order; null once the stream is exhausted
+    private interface OperationSource {
+        Operation next();
+    }
+
+    // Same seed, same accounts. They are opened empty and funded on the simulated clock,
+    // so even the Initial Deposit entries carry the same timestamps on every run.
+    List<BankAccount> createAccounts() {
+        Random random = new Random(seed);
+        SimulatedClock opening = new SimulatedClock(START_MILLIS, ZoneOffset.UTC);
+        List<BankAccount> accounts = new ArrayList<>(accountCount);
+        for (int i = 0; i < accountCount; i++) {
+            String number = String.valueOf(100_000_000L + i);
+            double initialBalance = 1000 + random.nextInt(99_000);
+            double kind = random.nextDouble();
+            BankAccount account;
+            if (kind < savingsShare) {
+                account = new SavingsAccount(number, 0, 500);
+            } else if (kind < savingsShare + currentShare) {
+                account = new CurrentAccount(number, 0, 1000);
+            } else {
+                Date maturity = new Date(START_MILLIS + (1 + random.nextInt(365)) * DAY_MILLIS);
+                account = new FixedDepositAccount(number, 0, maturity);
+            }
+            account.setClock(opening);
+            account.fund(initialBalance);
+            accounts.add(account);
+        }
+        return accounts;
+    }
+
+    // Seeded operation stream: Zipf-distributed accounts, denser traffic at month end,
+    // and an interest run at the start of each new month
+    private OperationSource generate(DataOutputStream recording) {
+        Random random = new Random(seed * 31 + 17);
+        ZipfSampler accounts = new ZipfSampler(accountCount, zipfSkew);
+        double baseGap = (double) simulatedDays * DAY_MILLIS / Math.max(operationCount, 1);
+
+        return new OperationSource() {
+            private long produced;
+            private double millis = START_MILLIS;
+            private int month = month(START_MILLIS);
+            private Operation pendingInterest;
+
+            @Override
+            public Operation next() {
+                if (pendingInterest != null) {
+                    Operation interest = pendingInterest;
+                    pendingInterest = null;
+                    return write(interest);
+                }
+                if (produced >= operationCount) {
+                    return null;
+                }
+                produced++;
+
+                LocalDate day = LocalDate.ofEpochDay((long) millis / DAY_MILLIS);
+                double gap = day.getDayOfMonth() > day.lengthOfMonth() - 3 ? baseGap / monthEndBurst : baseGap;
+                millis += -Math.log(1 - random.nextDouble()) * gap;
+
+                double pick = random.nextDouble();
+                OpType type = pick < 0.45 ? OpType.DEPOSIT : pick < 0.85 ? OpType.WITHDRAW : OpType.BALANCE;
+                double amount = (1000 + random.nextInt(99_000)) / 100.0;
+                Operation operation = new Operation(type, accounts.next(random), amount, (long) millis);
+
+                int currentMonth = month((long) millis);
+                if (currentMonth != month) {
+                    month = currentMonth;
+                    pendingInterest = operation;
+                    return write(new Operation(OpType.INTEREST_RUN, -1, monthlyInterestRate, (long) millis));
+                }
+                return write(operation);
+            }
+
+            private Operation write(Operation operation) {
+                if (recording != null) {
+                    try {
+                        recording.writeByte(operation.type.ordinal());
+                        recording.writeInt(operation.account);
+                        recording.writeDouble(operation.amount);
+                        recording.writeLong(operation.millis);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return operation;
+            }
+        };
+    }
+
+    private static int month(long millis) {
+        LocalDate day = LocalDate.ofEpochDay(millis / DAY_MILLIS);
+        return day.getYear() * 12 + day.getMonthValue();
+    }
+
+    // Feed operations to one worker per shard and wait for all of them to drain.
+    // If any operation fails, production stops and the first failure is rethrown.
+    private Result execute(List<BankAccount> accounts, OperationSource source) {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<BlockingQueue<Operation>> queues = new ArrayList<>(threads);
+        List<LatencyHistogram> histograms = new ArrayList<>(threads);
+        List<Thread> workers = new ArrayList<>(threads);
+
+        for (int shard = 0; shard < threads; shard++) {
+            BlockingQueue<Operation> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            LatencyHistogram histogram = new LatencyHistogram();
+            SimulatedClock clock = new SimulatedClock(START_MILLIS, ZoneOffset.UTC);
+            List<BankAccount> owned = new ArrayList<>();
+            for (int i = shard; i < accounts.size(); i += threads) {
+                accounts.get(i).setClock(clock);
+                owned.add(accounts.get(i));
+            }
+
+            Thread worker = new Thread(() -> work(queue, accounts, owned, clock, histogram, failure), "workload-" + shard);
+            queues.add(queue);
+            histograms.add(histogram);
+            workers.add(worker);
+        }
+
+        long started = System.nanoTime();
+        workers.forEach(Thread::start);
+        long operations = 0;
+        try {
+            try {
+                for (Operation operation = source.next(); operation != null && failure.get() == null;
+                     operation = source.next()) {
+                    if (operation.type == OpType.INTEREST_RUN) {
+                        for (BlockingQueue<Operation> queue : queues) {
+                            queue.put(operation);
+                        }
+                    } else {
+                        queues.get(operation.account % threads).put(operation);
+                    }
+                    operations++;
+                }
+            } catch (RuntimeException | Error e) {
+                // A bad recording or failed write stops the workers from applying what is still queued
+                failure.compareAndSet(null, e);
+                throw e;
+            } finally {
+                // Workers only stop at END, so it is sent however production ended
+                Operation end = new Operation(OpType.END, -1, 0, 0);
+                for (BlockingQueue<Operation> queue : queues) {
+                    queue.put(end);
+                }
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.forEach(Thread::interrupt);
+            throw new IllegalStateException("Workload interrupted", e);
+        }
+        long elapsed = System.nanoTime() - started;
+        if (failure.get() != null) {
+            throw new IllegalStateException("Workload operation failed", failure.get());
+        }
+
+        LatencyHistogram latency = new LatencyHistogram();
+        histograms.forEach(latency::add);
+        return new Result(operations, elapsed, latency, fingerprint(accounts));
+    }
+
+    // Keeps draining its queue after a failure so the producer is never left blocked on a full queue
+    private static void work(BlockingQueue<Operation> queue, List<BankAccount> accounts, List<BankAccount> owned,
+                             SimulatedClock clock, LatencyHistogram histogram, AtomicReference<Throwable> failure) {
+        try {
+            while (true) {
+                Operation operation = queue.take();
+                if (operation.type == OpType.END) {
+                    return;
+                }
+                if (failure.get() != null) {
+                    continue;
+                }
+                clock.setMillis(operation.millis);
+                long started = System.nanoTime();
+                try {
+                    apply(operation, accounts, owned);
+                } catch (RuntimeException | Error e) {
+                    failure.compareAndSet(null, e);
+                    continue;
+                }
+                histogram.record(System.nanoTime() - started);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void apply(Operation operation, List<BankAccount> accounts, List<BankAccount> owned) {
+        switch (operation.type) {
+            case DEPOSIT: {
+                BankAccount account = accounts.get(operation.account);
+                if (account.deposit(operation.amount)) {
+                    account.addTransaction("Deposit", operation.amount);
+                }
+                break;
+            }
+            case WITHDRAW: {
+                BankAccount account = accounts.get(operation.account);
+                if (account.withdraw(operation.amount)) {
+                    account.addTransaction("Withdrawal", -operation.amount);
+                }
+                break;
+            }
+            case BALANCE:
+                accounts.get(operation.account).checkBalance();
+                break;
+            case INTEREST_RUN:
+                for (BankAccount account : owned) {
+                    if (account instanceof SavingsAccount) {
+                        ((SavingsAccount) account).calculateInterest(operation.amount);
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Covers every account's balance, version and full history: entry types, amounts and timestamps
+    private static long fingerprint(List<BankAccount> accounts) {
+        long hash = 1;
+        for (BankAccount account : accounts) {
+            hash = hash * 31 + Double.doubleToLongBits(account.checkBalance());
+            hash = hash * 31 + account.getVersion();
+            for (Transaction transaction : account.getLastNTransactions(Integer.MAX_VALUE)) {
+                hash = hash * 31 + transaction.getType().hashCode();
+                hash = hash * 31 + Double.doubleToLongBits(transaction.getAmount());
+                hash = hash * 31 + transaction.getDate().getTime();
+            }
+        }
+        return hash;
+    }
+
+    // Usage: WorkloadGenerator [accounts] [operations] [threads] [seed]
+    public static void main(String[] args) throws IOException {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long operations = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+        Path recording = Files.createTempFile(Paths.get(System.getProperty("java.io.tmpdir")), "workload", ".bin");
+        try {
+            Result recorded = new WorkloadGenerator(seed, accounts, operations, threads).record(recording);
+            System.out.println("Recorded: " + recorded);
+            Result replayed = replay(recording, threads);
+            System.out.println("Replayed: " + replayed);
+            System.out.println(recorded.getFingerprint() == replayed.getFingerprint()
+                    ? "Replay is deterministic" : "Replay diverged from the recording");
+        } finally {
+            Files.deleteIfExists(recording);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package banking;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Samples ranks 0..n-1 with probability proportional to 1 / (rank + 1)^skew
+class ZipfSampler {
+    private final double[] cumulative;
+
+    ZipfSampler(int n, double skew) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / Math.pow(i + 1, skew);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    int next(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+}
@@ -0,0 +1,3 @@
+module bankingappsystem.core {
+    exports banking;
+}
@@ -1,5 +1,12 @@
 // BankAccountManagementSystem.java
-package banking;
+package banking.ui;
+
+import banking.AccountRegistry;
+import banking.BankAccount;
+import banking.CurrentAccount;
+import banking.FixedDepositAccount;
+import banking.SavingsAccount;
+import banking.Transaction;
 
 import javafx.application.Application;
 import javafx.collections.FXCollections;
@@ -16,13 +23,11 @@ import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
 
 public class BankAccountManagementSystem extends Application {
 
-    private Map<String, BankAccount> accounts = new HashMap<>();
+    private final AccountRegistry accounts = new AccountRegistry();
     private ListView<String> accountListView = new ListView<>();
     private ListView<String> transactionListView = new ListView<>();
     private Label statusLabel = new Label("Welcome to Bank Account Management System");
@@ -51,7 +56,7 @@ public class BankAccountManagementSystem extends Application {
         if (accounts.isEmpty()) {
             accountItems.add("No accounts created yet");
         } else {
-            for (BankAccount account : accounts.values()) {
+            for (BankAccount account : accounts.all()) {
                 accountItems.add(account.toString());
             }
         }
@@ -252,7 +257,7 @@ public class BankAccountManagementSystem extends Application {
                     return;
                 }
 
-                if (accounts.containsKey(accountNumber)) {
+                if (accounts.contains(accountNumber)) {
                     showAlert(Alert.AlertType.ERROR, "Duplicate Account", "Account number already exists");
                     return;
                 }
@@ -330,10 +335,8 @@ public class BankAccountManagementSystem extends Application {
                         break;
                 }
 
-                // Add transaction for initial deposit
-                newAccount.addTransaction("Initial Deposit", initialBalance);
-
-                accounts.put(accountNumber, newAccount);
+                // The constructor already records the initial deposit
+                accounts.register(newAccount);
                 statusLabel.setText("✅ " + selectedType + " created successfully!");
 
                 // Clear fields
@@ -518,8 +521,11 @@ public class BankAccountManagementSystem extends Application {
                     }
                 }
 
-                account.deposit(amount);
-                account.addTransaction("Deposit", amount);
+                if (!account.deposit(null, amount)) {
+                    showAlert(Alert.AlertType.ERROR, "Deposit Failed",
+                            "This account does not accept deposits");
+                    return;
+                }
                 updateTransactionList(account);
                 balanceLabel.setText("Balance: " + currencyFormat.format(account.checkBalance()));
                 statusLabel.setText("✅ Deposit of " + currencyFormat.format(amount) + " successful");
@@ -578,10 +584,9 @@ public class BankAccountManagementSystem extends Application {
                     }
                 }
 
-                boolean success = account.withdraw(amount);
+                boolean success = account.withdraw(null, amount);
 
                 if (success) {
-                    account.addTransaction("Withdrawal", -amount);
                     updateTransactionList(account);
                     balanceLabel.setText("Balance: " + currencyFormat.format(account.checkBalance()));
                     statusLabel.setText("✅ Withdrawal of " + currencyFormat.format(amount) + " successful");
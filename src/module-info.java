@@ -1,7 +1,7 @@
 module bankingappsystem {
+    requires bankingappsystem.core;
     requires javafx.controls;
     requires javafx.graphics;
-    requires java.sql;
 
-    exports banking;
-}
\ No newline at end of file
+    exports banking.ui;
+}